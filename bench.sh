@@ -0,0 +1,31 @@
+# Benchmarks of the library with JMH
+# The jars of JMH (jmh-core, jmh-generator-annprocess, jopt-simple, commons-math3) are expected in JMH_LIB,
+# and the jar of 3plib in PPPLIB_JAR, so that everything runs offline.
+# The sources of the benchmarked library are expected in LIB_SRC (by default, the ones of this tree).
+# To compare with a previous release, give its sources in LIB_SRC and set BASELINE=1: only the benchmarks of the API
+# of the first release (ParserBenchmark, FlowpipeBenchmark) are compiled, the ones of the newer API being left out.
+# The arguments are given to JMH (e.g. ./bench.sh FlowpipeBenchmark -p breakpoints=1000).
+JMH_LIB=${JMH_LIB:-../jmh-download}
+PPPLIB_JAR=${PPPLIB_JAR:-../3plib-download/3plib-0.1.0.jar}
+LIB_SRC=${LIB_SRC:-src}
+CP=$PPPLIB_JAR:$(echo $JMH_LIB/*.jar | tr ' ' ':')
+BENCH=bench/src/fr/imag/spaceex/bench
+if [ -n "$BASELINE" ]
+then
+    BENCH_SRC="$BENCH/SpaceExOutputGenerator.java $BENCH/ParserBenchmark.java $BENCH/FlowpipeBenchmark.java"
+else
+    BENCH_SRC="$BENCH/*.java"
+fi
+# Remove the last compilation
+echo 'Remove the last benchmark compilation...'
+rm -rf bench/compiled
+mkdir -p bench/compiled/classes
+echo 'Done !'
+# Library and benchmarks compilation (the JMH annotation processor generates the benchmark harness)
+echo 'Compile the library and the benchmarks...'
+javac -cp $CP -d bench/compiled/classes $LIB_SRC/fr/imag/spaceex/*.java $BENCH_SRC || exit 1
+echo 'Done !'
+# Benchmarks
+echo 'Run the benchmarks...'
+java -cp bench/compiled/classes:$CP org.openjdk.jmh.Main "$@"
+echo 'Done !'
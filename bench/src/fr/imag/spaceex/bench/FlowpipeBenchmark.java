@@ -0,0 +1,114 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex.bench;
+
+import fr.imag.spaceex.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.imag.ppplib.*;
+
+/** Benchmarks of the evaluation and of the conversion of generated flowpipes.
+ ** They only use the API of the first release, so that the releases can be compared (see bench.sh).
+ **/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlowpipeBenchmark
+{
+    @Param({"10"})
+    public int variables;
+    
+    @Param({"40"})
+    public int directions;
+    
+    @Param({"100", "1000"})
+    public int breakpoints;
+    
+    @Setup(Level.Trial)
+    public void generate() throws IOException
+    {
+        /* the flowpipes are parsed from a file, as the previous releases can only do */
+        File f = File.createTempFile("spaceex", ".txt");
+        List <Flowpipe> fps;
+        try
+        {
+            new SpaceExOutputGenerator(SEED, variables, directions, breakpoints, 2).write(f);
+            fps = new SpaceExOutputParser(f.getPath()).getFlowpipes();
+        }
+        finally
+        {
+            f.delete();
+        }
+        first = fps.get(0);
+        second = fps.get(1);
+        /* a box direction with irregular time steps, as the generated ones */
+        Random r = new Random(SEED);
+        double[] d = new double[variables];
+        d[0] = 1.0;
+        hyperplane = new HyperplaneInTime(d);
+        double t = 0.0;
+        for (int i = 0 ; i < breakpoints ; i++)
+        {
+            hyperplane.addConstraintInTime(t, 1 + Math.sin(t));
+            t += 0.01*(0.5 + r.nextDouble());
+        }
+        /* times spread over the hyperplane and beyond, in a random order */
+        double end = t;
+        times = new double[TIMES];
+        for (int i = 0 ; i < TIMES ; i++) times[i] = 1.1*end*r.nextDouble();
+    }
+    
+    @Benchmark
+    public void getConstraint(Blackhole bh)
+    {
+        for (double t : times) bh.consume(hyperplane.getConstraint(t));
+    }
+    
+    @Benchmark
+    public Flowpipe composeWith()
+    {
+        return first.composeWith(second);
+    }
+    
+    @Benchmark
+    public List <ConvexPolyhedronSupportFunction> polyhedralRepresentation()
+    {
+        return first.polyhedralRepresentation();
+    }
+    
+    private Flowpipe first;
+    private Flowpipe second;
+    private HyperplaneInTime hyperplane;
+    private double[] times;
+    private static final long SEED = 42;
+    private static final int TIMES = 1024;
+}
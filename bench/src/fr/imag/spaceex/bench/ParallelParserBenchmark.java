@@ -0,0 +1,76 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex.bench;
+
+import fr.imag.spaceex.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Benchmarks of the parallel parsing of a generated SpaceEx output, which the first release does not have (see bench.sh).
+ **/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelParserBenchmark
+{
+    @Param({"10"})
+    public int variables;
+    
+    @Param({"40"})
+    public int directions;
+    
+    @Param({"100", "1000"})
+    public int breakpoints;
+    
+    @Param({"10"})
+    public int flowpipes;
+    
+    @Setup(Level.Trial)
+    public void generate() throws IOException
+    {
+        file = File.createTempFile("spaceex", ".txt");
+        file.deleteOnExit();
+        new SpaceExOutputGenerator(SEED, variables, directions, breakpoints, flowpipes).write(file);
+    }
+    
+    @TearDown(Level.Trial)
+    public void delete()
+    {
+        file.delete();
+    }
+    
+    @Benchmark
+    public SpaceExOutputParser parseInParallel()
+    {
+        return new SpaceExOutputParser(file.getPath(), ForkJoinPool.commonPool());
+    }
+    
+    private File file;
+    private static final long SEED = 42;
+}
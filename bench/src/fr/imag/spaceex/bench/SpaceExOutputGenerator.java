@@ -0,0 +1,185 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/** A deterministic generator of SpaceEx txt outputs, for the benchmarks: the same parameters always give the same file.
+ ** Each flowpipe has the box directions ±e_i first, then octagonal directions ±e_i ± e_j, each one with a smooth upper bound in time
+ ** (a drift and an oscillation, sampled with irregular time steps), written as the plif of SpaceEx.
+ **/
+
+public class SpaceExOutputGenerator
+{
+    /** Create a generator.
+     ** @param seed the seed of the pseudo-random numbers.
+     ** @param variables the number of variables.
+     ** @param directions the number of directions of each flowpipe.
+     ** @param breakpoints the number of breakpoints of each direction.
+     ** @param flowpipes the number of flowpipes.
+     **/
+    public SpaceExOutputGenerator(long seed, int variables, int directions, int breakpoints, int flowpipes)
+    {
+        this.seed = seed;
+        this.variables = variables;
+        this.directions = directions;
+        this.breakpoints = breakpoints;
+        this.flowpipes = flowpipes;
+    }
+    
+    /** Write the output to a file.
+     ** @param f the file.
+     **/
+    public void write(File f) throws IOException
+    {
+        Writer w = new BufferedWriter(new FileWriter(f));
+        try
+        {
+            write(w);
+        }
+        finally
+        {
+            w.close();
+        }
+    }
+    
+    /** Write the output.
+     ** @param w the writer, which is not closed.
+     **/
+    public void write(Writer w) throws IOException
+    {
+        Random r = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        double t0 = 0.0;
+        for (int f = 0 ; f < flowpipes ; f++)
+        {
+            if (f > 0)
+                w.write("|\n");
+            w.write("Reachability result\n");
+            if (f == 0)
+            {
+                w.write("variables domain: [");
+                for (int i = 0 ; i < variables ; i++) w.write((i > 0 ? ", " : "") + "x" + i + ":real");
+                w.write("] locked\n");
+            }
+            /* the flowpipes follow each other in time */
+            double t1 = t0;
+            for (int k = 0 ; k < directions ; k++)
+            {
+                sb.setLength(0);
+                sb.append("direction: [");
+                direction(k, sb);
+                sb.append("] plif:\n Upper Function: points: [");
+                double drift = r.nextDouble() - 0.5;
+                double amplitude = r.nextDouble();
+                double frequency = 1 + 4*r.nextDouble();
+                double phase = 2*Math.PI*r.nextDouble();
+                double base = 1 + 10*r.nextDouble();
+                double t = t0;
+                for (int p = 0 ; p < breakpoints ; p++)
+                {
+                    double b = base + drift*t + amplitude*Math.sin(frequency*t + phase);
+                    /* the bound is the greatest of the three values, which come in any order */
+                    double[] s = {b, b - r.nextDouble(), b - r.nextDouble()};
+                    int m = r.nextInt(3);
+                    double x = s[0];
+                    s[0] = s[m];
+                    s[m] = x;
+                    sb.append(p > 0 ? ",\n[" : "[");
+                    number(sb, t).append(", ");
+                    number(sb, s[0]).append(", ");
+                    number(sb, s[1]).append(", ");
+                    number(sb, s[2]).append(']');
+                    t += STEP*(0.5 + r.nextDouble());
+                }
+                sb.append("] error: 0\n");
+                w.write(sb.toString());
+                t1 = Math.max(t1, t);
+            }
+            t0 = t1;
+        }
+    }
+    
+    /** Generate an output file.
+     ** @param args seed, variables, directions, breakpoints, flowpipes, and the file name.
+     **/
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 6)
+        {
+            System.err.println("usage: SpaceExOutputGenerator seed variables directions breakpoints flowpipes file");
+            System.exit(1);
+        }
+        new SpaceExOutputGenerator(Long.parseLong(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                                   Integer.parseInt(args[3]), Integer.parseInt(args[4])).write(new File(args[5]));
+    }
+    
+    /* the k-th direction: the box directions, then the octagonal ones (and again, if there are more directions) */
+    private void direction(int k, StringBuilder sb)
+    {
+        int n = variables;
+        int box = 2*n;
+        int oct = 2*n*(n-1);
+        k = k % (box + oct);
+        if (k < box)
+        {
+            sb.append('x').append(k/2).append('=').append(k % 2 == 0 ? "1" : "-1");
+            return;
+        }
+        k -= box;
+        int signs = k % 4;
+        int pair = k/4;
+        /* the pair (i, j), i < j, of rank pair */
+        int i = 0;
+        while (pair >= n-1-i)
+        {
+            pair -= n-1-i;
+            i++;
+        }
+        int j = i + 1 + pair;
+        sb.append('x').append(i).append('=').append(signs < 2 ? "1" : "-1");
+        sb.append(",x").append(j).append('=').append(signs % 2 == 0 ? "1" : "-1");
+    }
+    
+    /* append a number as SpaceEx writes it, with a lowercase exponent (e.g. 9.02e-4) */
+    private static StringBuilder number(StringBuilder sb, double v)
+    {
+        int start = sb.length();
+        sb.append(v);
+        for (int i = start ; i < sb.length() ; i++)
+            if (sb.charAt(i) == 'E')
+                sb.setCharAt(i, 'e');
+        return sb;
+    }
+    
+    private final long seed;
+    private final int variables;
+    private final int directions;
+    private final int breakpoints;
+    private final int flowpipes;
+    private static final double STEP = 0.01;
+}
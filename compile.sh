@@ -9,6 +9,15 @@ echo 'Compile the library...'
 #javac -cp compiled/classes/:../3plib-download/3plib-0.1.0.jar -d compiled/classes src/fr/imag/spaceex/*.java -Xlint:unchecked
 javac -cp compiled/classes/:../3plib-download/3plib-0.1.0.jar -d compiled/classes src/fr/imag/spaceex/*.java -Xlint:unchecked
 echo 'Done !'
+# JFR metrics listener compilation, only with a JDK which provides JFR (the compilation errors are shown)
+echo 'Compile the JFR metrics listener...'
+if javap jdk.jfr.Event > /dev/null 2>&1
+then
+    javac -cp compiled/classes/ -d compiled/classes src/fr/imag/spaceex/jfr/*.java -Xlint:unchecked
+    echo 'Done !'
+else
+    echo 'Skipped (no JFR in this JDK) !'
+fi
 # JAR generation
 echo 'JAR generation...'
 jar cf release/spaceex-adapter.jar -C compiled/classes/ .
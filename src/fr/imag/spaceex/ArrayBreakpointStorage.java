@@ -0,0 +1,155 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.util.Arrays;
+
+/** A storage of breakpoints in two parallel arrays on the heap, which grow geometrically.
+ **/
+
+class ArrayBreakpointStorage implements BreakpointStorage
+{
+    /** Create an empty storage.
+     **/
+    ArrayBreakpointStorage()
+    {
+    }
+    
+    /** Create a storage with a copy of the given breakpoints.
+     ** @param s the breakpoints.
+     **/
+    ArrayBreakpointStorage(BreakpointStorage s)
+    {
+        size = s.size();
+        times = new double[size];
+        bounds = new double[size];
+        for (int i = 0 ; i < size ; i++)
+        {
+            times[i] = s.getTime(i);
+            bounds[i] = s.getBound(i);
+        }
+        sealed = s.isSealed();
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    public double getTime(int i)
+    {
+        return times[i];
+    }
+    
+    public double getBound(int i)
+    {
+        return bounds[i];
+    }
+    
+    public boolean isWritable()
+    {
+        return true;
+    }
+    
+    public void add(double t, double b)
+    {
+        if (size == times.length)
+        {
+            int cap = Math.max(8, 2*size);
+            times = Arrays.copyOf(times, cap);
+            bounds = Arrays.copyOf(bounds, cap);
+        }
+        times[size] = t;
+        bounds[size] = b;
+        size++;
+        sealed = false;
+        modifications++;
+    }
+    
+    public synchronized void seal()
+    {
+        if (sealed)
+            return;
+        boolean sorted = true;
+        for (int i = 1 ; i < size && sorted ; i++) sorted = times[i-1] <= times[i];
+        if (!sorted)
+            sort(times, bounds, size);
+        if (times.length != size)
+        {
+            times = Arrays.copyOf(times, size);
+            bounds = Arrays.copyOf(bounds, size);
+        }
+        sealed = true;
+    }
+    
+    public boolean isSealed()
+    {
+        return sealed;
+    }
+    
+    public int getModificationCount()
+    {
+        return modifications;
+    }
+    
+    public BreakpointStorage newStorage()
+    {
+        return new ArrayBreakpointStorage();
+    }
+    
+    /* stable merge sort of the breakpoints by time */
+    static void sort(double[] times, double[] bounds, int n)
+    {
+        double[] tt = new double[n];
+        double[] tb = new double[n];
+        for (int w = 1 ; w < n ; w *= 2)
+        {
+            for (int lo = 0 ; lo < n ; lo += 2*w)
+            {
+                int mid = Math.min(lo + w, n);
+                int hi = Math.min(lo + 2*w, n);
+                int i = lo;
+                int j = mid;
+                for (int k = lo ; k < hi ; k++)
+                {
+                    if (j < hi && (i == mid || times[j] < times[i]))
+                    {
+                        tt[k] = times[j];
+                        tb[k] = bounds[j++];
+                    }
+                    else
+                    {
+                        tt[k] = times[i];
+                        tb[k] = bounds[i++];
+                    }
+                }
+            }
+            System.arraycopy(tt, 0, times, 0, n);
+            System.arraycopy(tb, 0, bounds, 0, n);
+        }
+    }
+    
+    private double[] times = new double[0];
+    private double[] bounds = new double[0];
+    private int size = 0;
+    private volatile boolean sealed = true;
+    private int modifications = 0;
+}
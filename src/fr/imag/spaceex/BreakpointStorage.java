@@ -0,0 +1,75 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+/** The storage of the breakpoints (ti, b(ti)) of a hyperplane in time, which can be on the heap, off-heap or in a mapped file (see BreakpointStorageFactory).
+ **/
+
+public interface BreakpointStorage
+{
+    /** Give the number of breakpoints.
+     ** @return the number of breakpoints.
+     **/
+    int size();
+    
+    /** Give the time of a breakpoint.
+     ** @param i the index of the breakpoint.
+     ** @return ti.
+     **/
+    double getTime(int i);
+    
+    /** Give the bound of a breakpoint.
+     ** @param i the index of the breakpoint.
+     ** @return b(ti).
+     **/
+    double getBound(int i);
+    
+    /** Tell whether breakpoints can be added, and the storage sorted.
+     ** @return true if they can.
+     **/
+    boolean isWritable();
+    
+    /** Add a breakpoint at the end.
+     ** @param t the time.
+     ** @param b the bound.
+     **/
+    void add(double t, double b);
+    
+    /** Sort the breakpoints by time (keeping the order of equal times), and trim the storage to their number.
+     ** Concurrent calls must be safe, and publish the sorted breakpoints to the threads which see the storage sealed.
+     **/
+    void seal();
+    
+    /** Tell whether the storage is sealed, i.e. whether no breakpoint has been added since the last seal.
+     ** @return true if it is.
+     **/
+    boolean isSealed();
+    
+    /** Give the number of modifications of the storage, so that the users can invalidate what they derived from it.
+     ** @return the number of modifications.
+     **/
+    int getModificationCount();
+    
+    /** Create an empty writable storage of the same kind (or on the heap if this one is read-only), e.g. to copy the breakpoints.
+     ** @return the new storage.
+     **/
+    BreakpointStorage newStorage();
+}
@@ -0,0 +1,70 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/** A factory of storages of breakpoints, which decides where the constraints in time of the hyperplanes live.
+ ** HEAP keeps them in arrays on the heap, OFF_HEAP in direct buffers, which are not scanned by the garbage collector,
+ ** and a ScratchFileStorageFactory in a memory-mapped scratch file, so that they can be larger than the heap and the memory.
+ ** NB : the direct buffers are limited in total by -XX:MaxDirectMemorySize, which is the maximum heap size by default,
+ ** so only a ScratchFileStorageFactory holds flowpipes which are larger than the configured heap.
+ **/
+
+public interface BreakpointStorageFactory
+{
+    /** Create an empty storage.
+     ** @return the storage.
+     **/
+    BreakpointStorage newStorage();
+    
+    /** The factory of storages on the heap (the default one). **/
+    BreakpointStorageFactory HEAP = new BreakpointStorageFactory()
+        {
+            public BreakpointStorage newStorage()
+            {
+                return new ArrayBreakpointStorage();
+            }
+        };
+    
+    /** The factory of storages in direct buffers, outside of the heap, but within -XX:MaxDirectMemorySize (see above). **/
+    BreakpointStorageFactory OFF_HEAP = new BreakpointStorageFactory()
+        {
+            public BreakpointStorage newStorage()
+            {
+                return new OffHeapBreakpointStorage(new OffHeapBreakpointStorage.Allocator()
+                    {
+                        public DoubleBuffer allocate(int n)
+                        {
+                            return ByteBuffer.allocateDirect(8*n).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                        }
+                        
+                        /* the direct buffers are freed by the garbage collector */
+                        public void release(DoubleBuffer b)
+                        {
+                        }
+                    });
+            }
+        };
+}
@@ -0,0 +1,86 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.nio.DoubleBuffer;
+
+/** A read-only storage of sorted breakpoints in two buffers (e.g. views of a mapped file), which are read without copy.
+ **/
+
+class BufferBreakpointStorage implements BreakpointStorage
+{
+    /** Create a storage over the remaining values of two buffers of the same length.
+     ** @param times the times, sorted.
+     ** @param bounds the bounds.
+     **/
+    BufferBreakpointStorage(DoubleBuffer times, DoubleBuffer bounds)
+    {
+        this.times = times.slice();
+        this.bounds = bounds.slice();
+    }
+    
+    public int size()
+    {
+        return times.limit();
+    }
+    
+    public double getTime(int i)
+    {
+        return times.get(i);
+    }
+    
+    public double getBound(int i)
+    {
+        return bounds.get(i);
+    }
+    
+    public boolean isWritable()
+    {
+        return false;
+    }
+    
+    public void add(double t, double b)
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    public void seal()
+    {
+    }
+    
+    public boolean isSealed()
+    {
+        return true;
+    }
+    
+    public int getModificationCount()
+    {
+        return 0;
+    }
+    
+    public BreakpointStorage newStorage()
+    {
+        return new ArrayBreakpointStorage();
+    }
+    
+    private final DoubleBuffer times;
+    private final DoubleBuffer bounds;
+}
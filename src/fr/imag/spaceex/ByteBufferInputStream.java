@@ -0,0 +1,65 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/** An InputStream which reads the remaining bytes of a ByteBuffer (e.g. a region of a mapped file).
+ **/
+
+class ByteBufferInputStream extends InputStream
+{
+    /** Create a stream over a buffer, which is consumed by the reads.
+     ** @param bb the buffer.
+     **/
+    ByteBufferInputStream(ByteBuffer bb)
+    {
+        this.bb = bb;
+    }
+    
+    @Override
+    public int read()
+    {
+        return bb.hasRemaining() ? (bb.get() & 0xff) : -1;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+        if (len == 0)
+            return 0;
+        if (!bb.hasRemaining())
+            return -1;
+        len = Math.min(len, bb.remaining());
+        bb.get(b, off, len);
+        return len;
+    }
+    
+    @Override
+    public int available()
+    {
+        return bb.remaining();
+    }
+    
+    private final ByteBuffer bb;
+}
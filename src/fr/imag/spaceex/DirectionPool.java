@@ -0,0 +1,83 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A pool of sparse directions, where the identical directions are interned so that their arrays are shared.
+ ** It can be used concurrently.
+ **/
+
+class DirectionPool
+{
+    /** Give the interned direction which is identical to the given one.
+     ** @param indices the increasing indices of the non-zero coordinates.
+     ** @param values the values of the non-zero coordinates.
+     ** @return the interned direction, whose arrays replace the given ones.
+     **/
+    Direction intern(int[] indices, double[] values)
+    {
+        Direction d = new Direction(indices, values);
+        Direction res = pool.putIfAbsent(d, d);
+        return res == null ? d : res;
+    }
+    
+    /** Give the number of distinct directions in the pool.
+     ** @return the number of directions.
+     **/
+    int size()
+    {
+        return pool.size();
+    }
+    
+    /** A sparse direction, compared by value. **/
+    static final class Direction
+    {
+        Direction(int[] indices, double[] values)
+        {
+            this.indices = indices;
+            this.values = values;
+            this.hash = 31*Arrays.hashCode(indices) + Arrays.hashCode(values);
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Direction))
+                return false;
+            Direction d = (Direction) o;
+            return hash == d.hash && Arrays.equals(indices, d.indices) && Arrays.equals(values, d.values);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+        
+        final int[] indices;
+        final double[] values;
+        private final int hash;
+    }
+    
+    private final ConcurrentHashMap <Direction, Direction> pool = new ConcurrentHashMap <Direction, Direction>();
+}
@@ -0,0 +1,76 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A pool of variable domains, where the outputs over the same variables share their variable map and their directions.
+ ** It can be used concurrently.
+ **/
+
+class DomainPool
+{
+    /** Give the interned domain which is identical to the given one.
+     ** @param varMap the map from the variable names to their index.
+     ** @param d the dimension.
+     ** @return the interned domain.
+     **/
+    Domain intern(Map <String, Integer> varMap, int d)
+    {
+        Domain dom = new Domain(varMap, d);
+        Domain res = pool.putIfAbsent(dom, dom);
+        return res == null ? dom : res;
+    }
+    
+    /** A variable domain, compared by value, with the directions of its outputs. **/
+    static final class Domain
+    {
+        Domain(Map <String, Integer> varMap, int d)
+        {
+            this.varMap = varMap;
+            this.d = d;
+            this.varTable = new VariableTable(varMap);
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Domain))
+                return false;
+            Domain dom = (Domain) o;
+            return d == dom.d && varMap.equals(dom.varMap);
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return 31*varMap.hashCode() + d;
+        }
+        
+        final Map <String, Integer> varMap;
+        final int d;
+        final VariableTable varTable;
+        final DirectionPool directions = new DirectionPool();
+    }
+    
+    private final ConcurrentHashMap <Domain, Domain> pool = new ConcurrentHashMap <Domain, Domain>();
+}
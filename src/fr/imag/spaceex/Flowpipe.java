@@ -21,12 +21,19 @@
 
 package fr.imag.spaceex;
 
+import java.nio.DoubleBuffer;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import fr.imag.ppplib.*;
 
@@ -36,12 +43,32 @@ import fr.imag.ppplib.*;
 
 public class Flowpipe
 {
+    /** Create an empty flowpipe.
+     **/
+    public Flowpipe()
+    {
+        this.hitl = new ArrayList <HyperplaneInTime>();
+        this.frozen = false;
+    }
+    
+    /* Create a frozen flowpipe over frozen hyperplanes, NB : the final list publishes them safely to the other threads */
+    private Flowpipe(List <HyperplaneInTime> frozenHyperplanes, int dim)
+    {
+        this.hitl = Collections.unmodifiableList(frozenHyperplanes);
+        this.frozen = true;
+        this.dim = dim;
+        this.initialized = !frozenHyperplanes.isEmpty();
+        timeIndex();
+    }
+    
     /** Add a hyperplane in time.
      ** @param h the hyperplane.
-     ** @exception FlowpipeException thrown if the added hyperplane does not live in the same vectorspace than the others.
+     ** @exception FlowpipeException thrown if the added hyperplane does not live in the same vectorspace than the others, or if the flowpipe is frozen.
      **/
     public void addHyperplane(HyperplaneInTime h)
     {
+        if (frozen)
+            throw new FlowpipeException(fzMessage);
         /* init of the dimension (for exceptions) */
         if (!initialized)
             dim = h.getDimension();
@@ -53,86 +80,437 @@ public class Flowpipe
         initialized = true;
     }
     
+    /** Give an immutable snapshot of the flowpipe, whose hyperplanes are frozen (see HyperplaneInTime.freeze) and whose time steps are merged once.
+     ** Any number of threads can evaluate and project the snapshot (e.g. through a parallel polyhedral stream) without locking,
+     ** since nothing is sorted or built lazily in place any more. The snapshot can still be composed or merged, which gives new flowpipes.
+     ** @return the snapshot, or this flowpipe if it is already frozen.
+     **/
+    public Flowpipe freeze()
+    {
+        if (frozen)
+            return this;
+        List <HyperplaneInTime> hs = new ArrayList <HyperplaneInTime>(hitl.size());
+        for (HyperplaneInTime h : hitl) hs.add(h.freeze());
+        return new Flowpipe(hs, dim);
+    }
+    
+    /** Tell whether the flowpipe is a frozen snapshot.
+     ** @return true if it is.
+     **/
+    public boolean isFrozen()
+    {
+        return frozen;
+    }
+    
     /** Perform the composition by cartesian product of the current Flowpipe with a given Flowpipe.
+     ** NB : the composed flowpipe is a view, which shares the constraints in time of the operands (see compose).
      ** @param f a flowpipe.
      ** @return the composed flowpipe.
      **/
     public Flowpipe composeWith(Flowpipe f)
+    {
+        return compose(this, f);
+    }
+    
+    /** Perform the composition by cartesian product of several flowpipes at once.
+     ** The composed flowpipe is a view: each of its hyperplanes shares the direction and the constraints in time of a hyperplane of an operand,
+     ** its direction being shifted by the dimensions of the previous operands. Nothing is copied, even when composing composed flowpipes.
+     ** NB : the constraints later added to the operands are visible while they keep their storages (see the view constructor of HyperplaneInTime).
+     ** @param fps the flowpipes.
+     ** @return the composed flowpipe.
+     **/
+    public static Flowpipe compose(Flowpipe... fps)
     {
         /* init */
-        int dim1 = dim;
-        int dim2 = f.dim;
-        int dimTot = dim1 + dim2;
+        int dimTot = 0;
+        for (Flowpipe f : fps) dimTot += f.dimension();
         Flowpipe res = new Flowpipe();
-        /* add each hyperplane of the current flowpipe */
+        /* add each hyperplane of each flowpipe, shifted by the dimensions of the previous ones */
+        int offset = 0;
+        for (Flowpipe f : fps)
+        {
+            for (HyperplaneInTime h : f.hitl) res.addHyperplane(new HyperplaneInTime(h, offset, dimTot));
+            offset += f.dimension();
+        }
+        return res;
+    }
+    
+    /** Give a flowpipe where the hyperplanes whose directions are positively proportional are merged.
+     ** The merged hyperplane keeps the direction of the first one, and its bound is the tighter one at each time:
+     ** the breakpoints are the ones of the merged hyperplanes, and the times where their bounds cross.
+     ** NB : the bounds which are rescaled to the kept direction are rounded upwards, so that the merged hyperplane stays sound.
+     ** @return the flowpipe with the merged hyperplanes (views of the hyperplanes which are not merged).
+     **/
+    public Flowpipe mergeParallelHyperplanes()
+    {
+        /* groups of hyperplanes with the same normalized direction, in the order of their first hyperplane */
+        Map <DirectionPool.Direction, List <HyperplaneInTime>> groups = new LinkedHashMap <DirectionPool.Direction, List <HyperplaneInTime>>();
         for (HyperplaneInTime h : hitl)
         {
-            double[] d = h.getNormalDirection();
-            double[] dir = new double[dimTot];
-            for (int i = 0 ; i < dim1 ; i++) dir[i] = d[i];
-            HyperplaneInTime hyp = new HyperplaneInTime(h, dir);
-            res.addHyperplane(hyp);
+            DirectionPool.Direction key = h.normalizedDirection();
+            List <HyperplaneInTime> g = groups.get(key);
+            if (g == null)
+            {
+                g = new ArrayList <HyperplaneInTime>();
+                groups.put(key, g);
+            }
+            g.add(h);
         }
-        /* add each hyperplane of f */
-        for (HyperplaneInTime h : f.hitl)
+        Flowpipe res = new Flowpipe();
+        for (List <HyperplaneInTime> g : groups.values())
         {
-            double[] d = h.getNormalDirection();
-            double[] dir = new double[dimTot];
-            for (int i = dim1 ; i < dimTot ; i++) dir[i] = d[i-dim1];
-            HyperplaneInTime hyp = new HyperplaneInTime(h, dir);
-            res.addHyperplane(hyp);
+            HyperplaneInTime merged = new HyperplaneInTime(g.get(0), 0, g.get(0).getDimension());
+            for (int j = 1 ; j < g.size() ; j++) merged = tighter(merged, g.get(j));
+            res.addHyperplane(merged);
         }
         return res;
     }
     
+    /** Give a simplified flowpipe, whose hyperplanes have fewer constraints in time (see HyperplaneInTime.simplify),
+     ** so that it has fewer time steps, hence fewer polyhedra. Its bounds are never below the bounds of this flowpipe, so it over-approximates it.
+     ** @param absTol the absolute tolerance.
+     ** @param relTol the relative tolerance.
+     ** @return the simplified flowpipe.
+     ** @exception FlowpipeException thrown if a tolerance is negative.
+     **/
+    public Flowpipe simplify(double absTol, double relTol)
+    {
+        Flowpipe res = new Flowpipe();
+        for (HyperplaneInTime h : hitl) res.addHyperplane(h.simplify(absTol, relTol));
+        return res;
+    }
+    
     /** Give the flowpipe as a list of polyhedra. Note that one dimension is added for time.
      ** @return the flowpipe as a list of polyhedra, ordened by time.
      **/
     public List <ConvexPolyhedronSupportFunction> polyhedralRepresentation()
     {
-        // TODO: really not efficient solution and some DIY
-        // to improve only if necessary
-        
-        /* construct the set of time steps, and sort it */
-        Set <Double> timeSet = new HashSet <Double>();
-        for (HyperplaneInTime h : hitl)
-            for (Double t : h.getTimeSteps()) timeSet.add(t);
-        Iterator <Double> it = timeSet.iterator();
-        List <Double> timeSteps = new ArrayList <Double>();
-        while (it.hasNext()) timeSteps.add(it.next());
-        Collections.sort(timeSteps);
-        
-        /* construct each polyhedra (one for each step), adding a new dimension: time */
+        MetricsListener ml = Metrics.listener;
+        long start = ml == null ? 0 : System.nanoTime();
         List <ConvexPolyhedronSupportFunction> res = new ArrayList <ConvexPolyhedronSupportFunction>();
-        for (Double t : timeSteps)
+        /* the time steps are merged from the sorted ones of each hyperplane */
+        TimeSweep sweep = new TimeSweep(hitl);
+        double[][] dirs = spaceTimeDirections();
+        while (sweep.hasNext())
+        {
+            double t = sweep.next();
+            res.add(buildPolyhedron(dirs, sweep, t));
+        }
+        if (ml != null)
+            ml.polyhedraBuilt(res.size(), hitl.size(), System.nanoTime() - start);
+        return res;
+    }
+    
+    /** Give the flowpipe as a list of polyhedra, as the previous method, but through a cache of polyhedra:
+     ** only the polyhedra which are not in the cache (or which have been cached before a modification of the flowpipe) are built.
+     ** NB : the polyhedra are shared with the cache, so they must not be modified.
+     ** @param cache the cache.
+     ** @return the flowpipe as a list of polyhedra, ordened by time.
+     **/
+    public List <ConvexPolyhedronSupportFunction> polyhedralRepresentation(PolyhedronCache cache)
+    {
+        MetricsListener ml = Metrics.listener;
+        long start = ml == null ? 0 : System.nanoTime();
+        int built = 0;
+        MergedTimeSteps merged = mergedTimeSteps();
+        double[] timeSteps = merged.steps;
+        long stamp = merged.stamp;
+        List <ConvexPolyhedronSupportFunction> res = new ArrayList <ConvexPolyhedronSupportFunction>(timeSteps.length);
+        /* the sweep is only moved to the time steps which are missing */
+        TimeSweep sweep = null;
+        double[][] dirs = null;
+        int next = 0;
+        for (int i = 0 ; i < timeSteps.length ; i++)
         {
-            ConvexPolyhedronSupportFunction p = new ConvexPolyhedronSupportFunction();
-            int n = 0;
-            boolean initN = false;
-            /* spatial constraints */
-            for (HyperplaneInTime h : hitl)
+            ConvexPolyhedronSupportFunction p = cache.get(this, i, stamp);
+            if (p == null)
             {
-                if (!initN)
-                    n = h.getDimension();
-                initN = true;
-                double[] d = h.getNormalDirection();
-                double[] dir = new double[n+1];
-                for (int i = 0 ; i < n ; i++) dir[i] = d[i];
-                p.addLinearConstraint(dir, h.getConstraint(t));
+                if (sweep == null)
+                {
+                    sweep = new TimeSweep(hitl);
+                    dirs = spaceTimeDirections();
+                }
+                if (next != i)
+                    sweep.seek(timeSteps[i]);
+                double t = sweep.next();
+                p = buildPolyhedron(dirs, sweep, t);
+                cache.put(this, i, stamp, p);
+                next = i+1;
+                built++;
             }
-            /* time constraints */
-            double[] dirTP = new double[n+1];
-            dirTP[n] = 1.0;
-            p.addLinearConstraint(dirTP, t);
-            double[] dirTM = new double[n+1];
-            dirTM[n] = -1.0;
-            p.addLinearConstraint(dirTM, -t);
-            /* add the constructed polyhedron */
             res.add(p);
         }
+        if (ml != null)
+            ml.polyhedraBuilt(built, hitl.size(), System.nanoTime() - start);
         return res;
     }
     
+    /** Give the polyhedron of the flowpipe at a given time, which is not necessarily a time step.
+     ** @param t the time.
+     ** @return the polyhedron, where the time is fixed to t.
+     **/
+    public ConvexPolyhedronSupportFunction polyhedronAt(double t)
+    {
+        double[][] dirs = spaceTimeDirections();
+        ConvexPolyhedronSupportFunction p = new ConvexPolyhedronSupportFunction();
+        int h = hitl.size();
+        for (int j = 0 ; j < h ; j++) p.addLinearConstraint(dirs[j], hitl.get(j).getConstraint(t));
+        p.addLinearConstraint(dirs[h], t);
+        p.addLinearConstraint(dirs[h+1], -t);
+        return p;
+    }
+    
+    /** Give the polyhedra of the flowpipe for the time steps in a time window.
+     ** The time steps are found in an index, built once for the flowpipe, so that the cost does not depend on the other time steps.
+     ** @param t1 the beginning of the window.
+     ** @param t2 the end of the window.
+     ** @return the polyhedra of the time steps t such that t1 <= t <= t2, ordened by time.
+     **/
+    public List <ConvexPolyhedronSupportFunction> polyhedraBetween(double t1, double t2)
+    {
+        List <ConvexPolyhedronSupportFunction> res = new ArrayList <ConvexPolyhedronSupportFunction>();
+        double[] timeSteps = timeIndex();
+        int lo = firstTimeStep(timeSteps, t1, false);
+        int hi = firstTimeStep(timeSteps, t2, true);
+        if (lo >= hi)
+            return res;
+        TimeSweep sweep = new TimeSweep(hitl);
+        sweep.seek(timeSteps[lo]);
+        double[][] dirs = spaceTimeDirections();
+        for (int i = lo ; i < hi ; i++)
+        {
+            double t = sweep.next();
+            res.add(buildPolyhedron(dirs, sweep, t));
+        }
+        return res;
+    }
+    
+    /** Give the bounds b(t) of all the hyperplanes on a time grid, without building any polyhedron.
+     ** The matrix is written row by row: the bound of the hyperplane j at times[i] is written at offset + j*times.length + i.
+     ** If the times are increasing, each hyperplane is swept once along them, without any allocation.
+     ** @param times the time grid.
+     ** @param res the array where the matrix is written.
+     ** @param offset the index of the first value in res.
+     ** @exception FlowpipeException thrown if the matrix does not fit in res.
+     **/
+    public void evaluateBounds(double[] times, double[] res, int offset)
+    {
+        int h = hitl.size();
+        int nt = times.length;
+        if (offset < 0 || offset + (long) h*nt > res.length)
+            throw new FlowpipeException(rsMessage);
+        boolean increasing = HyperplaneInTime.isIncreasing(times);
+        for (int j = 0 ; j < h ; j++)
+        {
+            HyperplaneInTime hit = hitl.get(j);
+            hit.seal();
+            hit.evaluate(times, increasing, res, offset + j*nt);
+        }
+    }
+    
+    /** Give the bounds b(t) of all the hyperplanes on a time grid, as the previous method, in a buffer (e.g. a direct or mapped one).
+     ** The matrix is written from the position of the buffer, which is not moved.
+     ** @param times the time grid.
+     ** @param res the buffer where the matrix is written.
+     ** @exception FlowpipeException thrown if the matrix does not fit in the remaining part of res.
+     **/
+    public void evaluateBounds(double[] times, DoubleBuffer res)
+    {
+        int h = hitl.size();
+        int nt = times.length;
+        if ((long) h*nt > res.remaining())
+            throw new FlowpipeException(rsMessage);
+        if (res.hasArray())
+        {
+            evaluateBounds(times, res.array(), res.arrayOffset() + res.position());
+            return;
+        }
+        /* absolute puts, so that nothing is allocated */
+        boolean increasing = HyperplaneInTime.isIncreasing(times);
+        int offset = res.position();
+        for (int j = 0 ; j < h ; j++)
+        {
+            HyperplaneInTime hit = hitl.get(j);
+            hit.seal();
+            hit.evaluate(times, increasing, res, offset + j*nt);
+        }
+    }
+    
+    /** Give the interval bounds of the variables at a given time, read from the hyperplanes whose directions are positively or negatively
+     ** proportional to an axis (the ±e_i box directions of the SpaceEx templates), without building any polyhedron.
+     ** The bounds of the variables without such directions are infinite.
+     ** @param t the time.
+     ** @return the box, which contains the polyhedron of the flowpipe at t.
+     **/
+    public IntervalBox boundingBoxAt(double t)
+    {
+        return boundingBoxAt(t, null);
+    }
+    
+    /** Give the interval bounds of the variables at a given time, as the previous method,
+     ** but evaluate the support functions of the polyhedron at t for the bounds which cannot be read from the hyperplanes.
+     ** @param t the time.
+     ** @param sf the evaluator of the support functions, or null to give infinite bounds.
+     ** @return the box, which contains the polyhedron of the flowpipe at t.
+     **/
+    public IntervalBox boundingBoxAt(double t, SupportFunctionEvaluator sf)
+    {
+        double[] lower = new double[dimension()];
+        double[] upper = new double[dimension()];
+        Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        for (HyperplaneInTime h : hitl)
+            if (isAxis(h))
+                bound(h, h.getConstraint(t), lower, upper);
+        if (sf != null && hasMissingBound(lower, upper))
+            supportBounds(polyhedronAt(t), sf, lower, upper);
+        return new IntervalBox(lower, upper);
+    }
+    
+    /** Give the interval bounds of the variables at each time step, as boundingBoxAt, without building any polyhedron.
+     ** @return the boxes, ordened by time, as the polyhedra of polyhedralRepresentation.
+     **/
+    public List <IntervalBox> boundingBoxes()
+    {
+        return boundingBoxes(null);
+    }
+    
+    /** Give the interval bounds of the variables at each time step, as boundingBoxAt.
+     ** @param sf the evaluator of the support functions, or null to give infinite bounds.
+     ** @return the boxes, ordened by time, as the polyhedra of polyhedralRepresentation.
+     **/
+    public List <IntervalBox> boundingBoxes(SupportFunctionEvaluator sf)
+    {
+        List <IntervalBox> res = new ArrayList <IntervalBox>();
+        TimeSweep sweep = new TimeSweep(hitl);
+        double[][] dirs = null;
+        int n = dimension();
+        int h = hitl.size();
+        boolean[] axis = new boolean[h];
+        for (int j = 0 ; j < h ; j++) axis[j] = isAxis(hitl.get(j));
+        while (sweep.hasNext())
+        {
+            double t = sweep.next();
+            double[] lower = new double[n];
+            double[] upper = new double[n];
+            Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+            Arrays.fill(upper, Double.POSITIVE_INFINITY);
+            for (int j = 0 ; j < h ; j++)
+                if (axis[j])
+                    bound(hitl.get(j), sweep.getConstraint(j), lower, upper);
+            if (sf != null && hasMissingBound(lower, upper))
+            {
+                if (dirs == null)
+                    dirs = spaceTimeDirections();
+                supportBounds(buildPolyhedron(dirs, sweep, t), sf, lower, upper);
+            }
+            res.add(new IntervalBox(lower, upper));
+        }
+        return res;
+    }
+    
+    /** Give the interval bounds of the variables over a time window, without building any polyhedron (see the next method).
+     ** @param t1 the beginning of the window.
+     ** @param t2 the end of the window.
+     ** @return the box, which is empty if t2 < t1.
+     **/
+    public IntervalBox boundingBoxBetween(double t1, double t2)
+    {
+        return boundingBoxBetween(t1, t2, null);
+    }
+    
+    /** Give the interval bounds of the variables over a time window, i.e. a box which contains the polyhedra at all the times t1 <= t <= t2.
+     ** The bounds are read from the axis directions as in boundingBoxAt: since each bound is linear between its time steps,
+     ** its maximum over the window is reached at a time step or at an end of the window.
+     ** @param t1 the beginning of the window.
+     ** @param t2 the end of the window.
+     ** @param sf the evaluator of the support functions, or null to give infinite bounds. It is given the space-time polyhedra
+     ** of the flowpipe between two consecutive time steps (with one more dimension for time), which are exact since the bounds are linear there
+     ** (from their values after a jump at the first time step).
+     ** @return the box, which is empty if t2 < t1.
+     **/
+    public IntervalBox boundingBoxBetween(double t1, double t2, SupportFunctionEvaluator sf)
+    {
+        int n = dimension();
+        double[] lower = new double[n];
+        double[] upper = new double[n];
+        if (!(t1 <= t2))
+        {
+            Arrays.fill(lower, Double.POSITIVE_INFINITY);
+            Arrays.fill(upper, Double.NEGATIVE_INFINITY);
+            return new IntervalBox(lower, upper);
+        }
+        Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+        for (HyperplaneInTime h : hitl)
+        {
+            if (!isAxis(h))
+                continue;
+            /* the maximum of b(t) over the window */
+            double b = Math.max(h.getConstraint(t1), h.getConstraint(t2));
+            for (int k = h.search(t1) ; k < h.getNumberOfTimeSteps() && h.getTimeStep(k) <= t2 ; k++) b = Math.max(b, h.getConstraintAtTimeStep(k));
+            bound(h, b, lower, upper);
+        }
+        if (sf != null && hasMissingBound(lower, upper))
+        {
+            double[] lo = new double[n];
+            double[] up = new double[n];
+            Arrays.fill(lo, Double.POSITIVE_INFINITY);
+            Arrays.fill(up, Double.NEGATIVE_INFINITY);
+            double[] timeSteps = timeIndex();
+            double ta = t1;
+            int k = firstTimeStep(timeSteps, t1, true);
+            do
+            {
+                double tb = k < timeSteps.length && timeSteps[k] < t2 ? timeSteps[k] : t2;
+                double[] l = lower.clone();
+                double[] u = upper.clone();
+                supportBounds(ta == tb ? polyhedronAt(ta) : segmentPolyhedron(ta, tb), sf, l, u);
+                for (int i = 0 ; i < n ; i++)
+                {
+                    lo[i] = Math.min(lo[i], l[i]);
+                    up[i] = Math.max(up[i], u[i]);
+                }
+                ta = tb;
+                k++;
+            }
+            while (ta < t2);
+            for (int i = 0 ; i < n ; i++)
+            {
+                lower[i] = Math.max(lower[i], lo[i]);
+                upper[i] = Math.min(upper[i], up[i]);
+            }
+        }
+        return new IntervalBox(lower, upper);
+    }
+    
+    /** Give an iterator over the flowpipe as polyhedra, which are built on demand.
+     ** @return the iterator over the polyhedra, ordened by time.
+     **/
+    public Iterator <ConvexPolyhedronSupportFunction> polyhedralIterator()
+    {
+        return Spliterators.iterator(polyhedralSpliterator());
+    }
+    
+    /** Give a spliterator over the flowpipe as polyhedra, which are built on demand.
+     ** It splits the time steps into ranges, each one being swept independently.
+     ** @return the spliterator over the polyhedra, ordened by time.
+     **/
+    public Spliterator <ConvexPolyhedronSupportFunction> polyhedralSpliterator()
+    {
+        double[] timeSteps = timeIndex();
+        return new PolyhedronSpliterator(timeSteps, spaceTimeDirections(), 0, timeSteps.length);
+    }
+    
+    /** Give a stream of the flowpipe as polyhedra, which are built on demand.
+     ** The stream can be made parallel, the time steps being split into ranges.
+     ** @return the stream of the polyhedra, ordened by time.
+     **/
+    public Stream <ConvexPolyhedronSupportFunction> polyhedralStream()
+    {
+        return StreamSupport.stream(polyhedralSpliterator(), false);
+    }
+    
     /** Give a textual description of the current flowpipe.
      ** @return the textual description.
      **/
@@ -144,8 +522,317 @@ public class Flowpipe
         return res;
     }
     
+    /* the hyperplane with the direction of h1, whose bound is the tighter one of h1 and h2 (whose direction is positively proportional),
+       NB : every breakpoint is swept, so that at a jump (a time step which is repeated) both the bounds before and after it are kept */
+    private static HyperplaneInTime tighter(HyperplaneInTime h1, HyperplaneInTime h2)
+    {
+        if (h2.getNumberOfTimeSteps() == 0)
+            return h1;
+        h1.seal();
+        h2.seal();
+        BreakpointStorage st1 = h1.getStorage();
+        BreakpointStorage st2 = h2.getStorage();
+        int n1 = st1.size();
+        int n2 = st2.size();
+        double s1 = h1.scale();
+        double s2 = h2.scale();
+        HyperplaneInTime res = h1.withoutConstraints();
+        double tp = 0.0;
+        double bp1 = 0.0;
+        double bp2 = 0.0;
+        boolean first = true;
+        int i = 0;
+        int j = 0;
+        while (i < n1 || j < n2)
+        {
+            double t = j >= n2 || (i < n1 && st1.getTime(i) < st2.getTime(j)) ? st1.getTime(i) : st2.getTime(j);
+            /* the bounds at t (before a jump), and just after t (after a jump) */
+            double b1;
+            double a1;
+            if (n1 == 0)
+                b1 = a1 = Double.POSITIVE_INFINITY;
+            else if (i < n1 && st1.getTime(i) == t)
+            {
+                b1 = st1.getBound(i);
+                while (i+1 < n1 && st1.getTime(i+1) == t) i++;
+                a1 = st1.getBound(i++);
+            }
+            else
+                b1 = a1 = h1.evaluate(i, t);
+            double b2;
+            double a2;
+            if (j < n2 && st2.getTime(j) == t)
+            {
+                b2 = st2.getBound(j);
+                while (j+1 < n2 && st2.getTime(j+1) == t) j++;
+                a2 = st2.getBound(j++);
+            }
+            else
+                b2 = a2 = h2.evaluate(j, t);
+            /* d2 = (s2/s1) d1, so d2.x <= b2 iff d1.x <= b2 s1/s2 */
+            if (s1 != s2)
+            {
+                b2 = Math.nextUp(Math.nextUp(b2*s1/s2));
+                a2 = Math.nextUp(Math.nextUp(a2*s1/s2));
+            }
+            /* both bounds are affine since the previous time step: add the time where they cross, if they do */
+            double dp = bp1 - bp2;
+            double dt = b1 - b2;
+            if (!first && ((dp < 0 && dt > 0) || (dp > 0 && dt < 0)))
+            {
+                double r = dp/(dp - dt);
+                double tc = tp + r*(t - tp);
+                if (tc > tp && tc < t)
+                    res.addConstraintInTime(tc, Math.max(bp1 + r*(b1 - bp1), bp2 + r*(b2 - bp2)));
+            }
+            res.addConstraintInTime(t, Math.min(b1, b2));
+            if (Math.min(a1, a2) != Math.min(b1, b2))
+                res.addConstraintInTime(t, Math.min(a1, a2));
+            tp = t;
+            bp1 = a1;
+            bp2 = a2;
+            first = false;
+        }
+        return res;
+    }
+    
+    /* the hyperplanes of the flowpipe */
+    List <HyperplaneInTime> getHyperplanes()
+    {
+        return hitl;
+    }
+    
+    /* the dimension, read from the hyperplanes if any (so that it is safely published for the frozen flowpipes) */
+    private int dimension()
+    {
+        return hitl.isEmpty() ? dim : hitl.get(0).getDimension();
+    }
+    
+    /* the merged time steps of all the hyperplanes (which are sealed), built again only if they have been modified */
+    private double[] timeIndex()
+    {
+        return mergedTimeSteps().steps;
+    }
+    
+    /* the merged time steps with the modification stamp they have been built for, NB : they are published at once, so that concurrent readers see them whole */
+    private MergedTimeSteps mergedTimeSteps()
+    {
+        long stamp = hitl.size();
+        for (HyperplaneInTime h : hitl) stamp += h.getModificationCount();
+        MergedTimeSteps res = mergedTimeSteps;
+        if (res != null && stamp == res.stamp)
+            return res;
+        TimeSweep sweep = new TimeSweep(hitl);
+        double[] steps = new double[16];
+        int n = 0;
+        while (sweep.hasNext())
+        {
+            if (n == steps.length)
+                steps = Arrays.copyOf(steps, 2*n);
+            steps[n++] = sweep.advance();
+        }
+        res = new MergedTimeSteps(Arrays.copyOf(steps, n), stamp);
+        mergedTimeSteps = res;
+        return res;
+    }
+    
+    /* the index of the first time step after t (or not before t if not strict) */
+    private static int firstTimeStep(double[] timeSteps, double t, boolean strict)
+    {
+        int i = 0;
+        int j = timeSteps.length;
+        while (i < j)
+        {
+            int m = (i + j) >>> 1;
+            if (timeSteps[m] < t || (strict && timeSteps[m] == t))
+                i = m+1;
+            else
+                j = m;
+        }
+        return i;
+    }
+    
+    /* the directions of the hyperplanes, then of the time constraints, with one more dimension for time */
+    private double[][] spaceTimeDirections()
+    {
+        int n = hitl.isEmpty() ? 0 : hitl.get(0).getDimension();
+        double[][] dirs = new double[hitl.size()+2][];
+        for (int j = 0 ; j < hitl.size() ; j++)
+        {
+            dirs[j] = new double[n+1];
+            hitl.get(j).copyDirection(dirs[j]);
+        }
+        dirs[hitl.size()] = new double[n+1];
+        dirs[hitl.size()][n] = 1.0;
+        dirs[hitl.size()+1] = new double[n+1];
+        dirs[hitl.size()+1][n] = -1.0;
+        return dirs;
+    }
+    
+    /* true if the direction of the hyperplane is proportional to an axis, and if the hyperplane has constraints in time */
+    private static boolean isAxis(HyperplaneInTime h)
+    {
+        return h.getNumberOfNonZeros() == 1 && h.getNumberOfTimeSteps() > 0;
+    }
+    
+    /* tighten the interval of the variable of an axis direction c.e_i with c.x_i <= b, rounded outwards */
+    private static void bound(HyperplaneInTime h, double b, double[] lower, double[] upper)
+    {
+        int i = h.getNonZeroIndex(0);
+        double c = h.getNonZeroValue(0);
+        double v = b/c;
+        if (c > 0)
+            upper[i] = Math.min(upper[i], c == 1.0 ? v : Math.nextUp(v));
+        else
+            lower[i] = Math.max(lower[i], c == -1.0 ? v : Math.nextDown(v));
+    }
+    
+    private static boolean hasMissingBound(double[] lower, double[] upper)
+    {
+        for (int i = 0 ; i < lower.length ; i++)
+            if (lower[i] == Double.NEGATIVE_INFINITY || upper[i] == Double.POSITIVE_INFINITY)
+                return true;
+        return false;
+    }
+    
+    /* fill the infinite bounds with the support functions of a space-time polyhedron in the directions ±e_i */
+    private static void supportBounds(ConvexPolyhedronSupportFunction p, SupportFunctionEvaluator sf, double[] lower, double[] upper)
+    {
+        int n = lower.length;
+        for (int i = 0 ; i < n ; i++)
+        {
+            if (upper[i] == Double.POSITIVE_INFINITY)
+            {
+                double[] d = new double[n+1];
+                d[i] = 1.0;
+                upper[i] = sf.evaluate(p, d);
+            }
+            if (lower[i] == Double.NEGATIVE_INFINITY)
+            {
+                double[] d = new double[n+1];
+                d[i] = -1.0;
+                lower[i] = -sf.evaluate(p, d);
+            }
+        }
+    }
+    
+    /* the space-time polyhedron between two times, where each bound is linear (d.x - s.t <= c, see segmentLine) */
+    private ConvexPolyhedronSupportFunction segmentPolyhedron(double ta, double tb)
+    {
+        double[][] dirs = spaceTimeDirections();
+        ConvexPolyhedronSupportFunction p = new ConvexPolyhedronSupportFunction();
+        int h = hitl.size();
+        int n = dimension();
+        double[] line = new double[2];
+        for (int j = 0 ; j < h ; j++)
+        {
+            segmentLine(hitl.get(j), ta, tb, line);
+            dirs[j][n] = -line[0];
+            p.addLinearConstraint(dirs[j], line[1]);
+        }
+        p.addLinearConstraint(dirs[h], tb);
+        p.addLinearConstraint(dirs[h+1], -ta);
+        return p;
+    }
+    
+    /* the line s.t + c above the bound of a hyperplane between two consecutive time steps ta < tb, written as {s, c} in line:
+       the bound is linear on ]ta, tb], from its value after a jump at ta (the largest one at ta) to its value at tb (before a jump) */
+    static void segmentLine(HyperplaneInTime h, double ta, double tb, double[] line)
+    {
+        double ba = h.getLargestConstraint(ta);
+        double bb = h.getConstraint(tb);
+        double s = (bb - ba)/(tb - ta);
+        line[0] = s;
+        line[1] = Math.max(ba - s*ta, bb - s*tb);
+    }
+    
+    /* the polyhedron at the current time step of the sweep, NB : the directions are shared by all the polyhedra */
+    private ConvexPolyhedronSupportFunction buildPolyhedron(double[][] dirs, TimeSweep sweep, double t)
+    {
+        ConvexPolyhedronSupportFunction p = new ConvexPolyhedronSupportFunction();
+        int h = hitl.size();
+        /* spatial constraints */
+        for (int j = 0 ; j < h ; j++) p.addLinearConstraint(dirs[j], sweep.getConstraint(j));
+        /* time constraints */
+        p.addLinearConstraint(dirs[h], t);
+        p.addLinearConstraint(dirs[h+1], -t);
+        return p;
+    }
+    
+    /* A spliterator over the polyhedra of a range of time steps, with its own sweep started on the first use */
+    private class PolyhedronSpliterator implements Spliterator <ConvexPolyhedronSupportFunction>
+    {
+        PolyhedronSpliterator(double[] timeSteps, double[][] dirs, int lo, int hi)
+        {
+            this.timeSteps = timeSteps;
+            this.dirs = dirs;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        
+        public boolean tryAdvance(Consumer <? super ConvexPolyhedronSupportFunction> action)
+        {
+            if (lo >= hi)
+                return false;
+            if (sweep == null)
+            {
+                sweep = new TimeSweep(hitl);
+                sweep.seek(timeSteps[lo]);
+            }
+            double t = sweep.next();
+            lo++;
+            action.accept(buildPolyhedron(dirs, sweep, t));
+            return true;
+        }
+        
+        public Spliterator <ConvexPolyhedronSupportFunction> trySplit()
+        {
+            int mid = (lo + hi) >>> 1;
+            if (mid - lo < MIN_SPLIT)
+                return null;
+            Spliterator <ConvexPolyhedronSupportFunction> prefix = new PolyhedronSpliterator(timeSteps, dirs, lo, mid);
+            lo = mid;
+            sweep = null;
+            return prefix;
+        }
+        
+        public long estimateSize()
+        {
+            return hi - lo;
+        }
+        
+        public int characteristics()
+        {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+        
+        private final double[] timeSteps;
+        private final double[][] dirs;
+        private int lo;
+        private final int hi;
+        private TimeSweep sweep;
+    }
+    
+    /* Merged time steps, and the modification stamp of the flowpipe when they were built */
+    private static final class MergedTimeSteps
+    {
+        MergedTimeSteps(double[] steps, long stamp)
+        {
+            this.steps = steps;
+            this.stamp = stamp;
+        }
+        
+        private final double[] steps;
+        private final long stamp;
+    }
+    
+    private volatile MergedTimeSteps mergedTimeSteps;
+    private final boolean frozen;
     private boolean initialized = false;
     private int dim;
-    private List <HyperplaneInTime> hitl = new ArrayList <HyperplaneInTime>();
+    private final List <HyperplaneInTime> hitl;
+    private static final int MIN_SPLIT = 16;
+    private static final String rsMessage = "The bounds do not fit in the given result.";
+    private static final String fzMessage = "The flowpipe is frozen.";
     private static final String nsvsMessage = "The added hyperplane does not live in the same vectorspace than the others.";
 }
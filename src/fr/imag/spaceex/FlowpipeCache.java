@@ -0,0 +1,266 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/** A binary cache of a parsed SpaceEx output, written beside the output file.
+ ** It is valid while the size, the modification time and the CRC-32 of the output are the same.
+ ** The cache is read back through a mapping of the file, the breakpoints of the hyperplanes being read in place.
+ ** The directions are stored sparsely.
+ **/
+
+class FlowpipeCache
+{
+    /** Create the cache of a SpaceEx output file, taking the stamp of the file.
+     ** @param source the SpaceEx output file.
+     **/
+    FlowpipeCache(File source)
+    {
+        this.source = source;
+        this.file = new File(source.getPath() + SUFFIX);
+        try
+        {
+            size = source.length();
+            modified = source.lastModified();
+            crc = checksum(source);
+            stamped = true;
+        }
+        catch (IOException e)
+        {
+            stamped = false;
+        }
+    }
+    
+    /** Read the cache.
+     ** @return the parsed output, or null if there is no valid cache.
+     **/
+    SpaceExOutputParser load()
+    {
+        if (!stamped || !file.isFile())
+            return null;
+        RandomAccessFile raf = null;
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel fc = raf.getChannel();
+            if (fc.size() > Integer.MAX_VALUE)
+                return null;
+            ByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            if (bb.getInt() != MAGIC || bb.getInt() != VERSION || bb.getLong() != size || bb.getLong() != modified || bb.getLong() != crc)
+                return null;
+            /* variables, NB : each count is checked against the remaining bytes before anything is allocated */
+            int d = bb.getInt();
+            int nv = count(bb, 8);
+            Map <String, Integer> varMap = new HashMap <String, Integer>(nv);
+            for (int i = 0 ; i < nv ; i++)
+            {
+                char[] name = new char[count(bb, 2)];
+                for (int j = 0 ; j < name.length ; j++) name[j] = bb.getChar();
+                varMap.put(new String(name), bb.getInt());
+            }
+            /* flowpipes */
+            DirectionPool directions = new DirectionPool();
+            int nf = count(bb, 4);
+            List <Flowpipe> flowpipes = new ArrayList <Flowpipe>(nf);
+            for (int i = 0 ; i < nf ; i++)
+            {
+                Flowpipe fp = new Flowpipe();
+                int nh = count(bb, 12);
+                for (int j = 0 ; j < nh ; j++)
+                {
+                    int dim = bb.getInt();
+                    int[] indices = new int[count(bb, 12)];
+                    double[] values = new double[indices.length];
+                    for (int k = 0 ; k < indices.length ; k++) indices[k] = bb.getInt();
+                    for (int k = 0 ; k < values.length ; k++) values[k] = bb.getDouble();
+                    int n = count(bb, 16);
+                    DoubleBuffer times = doubles(bb, n);
+                    DoubleBuffer bounds = doubles(bb, n);
+                    HyperplaneInTime h = new HyperplaneInTime(dim, indices, values, new BufferBreakpointStorage(times, bounds));
+                    h.internDirection(directions);
+                    fp.addHyperplane(h);
+                }
+                flowpipes.add(fp);
+            }
+            return new SpaceExOutputParser(flowpipes, varMap, d);
+        }
+        catch (Exception e)
+        {
+            /* a corrupted cache is ignored, and will be written again */
+            return null;
+        }
+        finally
+        {
+            close(raf);
+        }
+    }
+    
+    /** Write the cache of a parsed output, if the file has not been modified since the stamp has been taken.
+     ** Any failure is ignored, since the cache is only an optimization.
+     ** @param p the parsed output.
+     **/
+    void store(SpaceExOutputParser p)
+    {
+        if (!stamped || source.length() != size || source.lastModified() != modified)
+            return;
+        File tmp = null;
+        DataOutputStream out = null;
+        try
+        {
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeLong(crc);
+            /* variables */
+            out.writeInt(p.getDimension());
+            Map <String, Integer> varMap = p.getVariableMap();
+            out.writeInt(varMap.size());
+            for (Map.Entry <String, Integer> e : varMap.entrySet())
+            {
+                out.writeInt(e.getKey().length());
+                out.writeChars(e.getKey());
+                out.writeInt(e.getValue());
+            }
+            /* flowpipes */
+            List <Flowpipe> flowpipes = p.getFlowpipes();
+            out.writeInt(flowpipes.size());
+            for (Flowpipe fp : flowpipes)
+            {
+                List <HyperplaneInTime> hitl = fp.getHyperplanes();
+                out.writeInt(hitl.size());
+                for (HyperplaneInTime h : hitl)
+                {
+                    int nnz = h.getNumberOfNonZeros();
+                    out.writeInt(h.getDimension());
+                    out.writeInt(nnz);
+                    for (int k = 0 ; k < nnz ; k++) out.writeInt(h.getNonZeroIndex(k));
+                    for (int k = 0 ; k < nnz ; k++) out.writeDouble(h.getNonZeroValue(k));
+                    int n = h.getNumberOfTimeSteps();
+                    out.writeInt(n);
+                    for (int i = 0 ; i < n ; i++) out.writeDouble(h.getTimeStep(i));
+                    for (int i = 0 ; i < n ; i++) out.writeDouble(h.getConstraintAtTimeStep(i));
+                }
+            }
+            out.close();
+            out = null;
+            if (tmp.length() > Integer.MAX_VALUE)
+                return;
+            /* NB : the cache is replaced at once, so that a concurrent reader never sees a partial one */
+            try
+            {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException e)
+            {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException e)
+        {
+            /* no cache */
+        }
+        finally
+        {
+            close(out);
+            if (tmp != null && tmp.exists())
+                tmp.delete();
+        }
+    }
+    
+    /* a count of items of at least the given size, which must fit in the remaining bytes of the buffer */
+    private static int count(ByteBuffer bb, int itemSize) throws IOException
+    {
+        int n = bb.getInt();
+        if (n < 0 || (long) n*itemSize > bb.remaining())
+            throw new IOException(ccMessage);
+        return n;
+    }
+    
+    /* a view of the next n doubles of the buffer */
+    private static DoubleBuffer doubles(ByteBuffer bb, int n)
+    {
+        ByteBuffer b = bb.duplicate();
+        b.limit(bb.position() + 8*n);
+        bb.position(bb.position() + 8*n);
+        return b.slice().asDoubleBuffer();
+    }
+    
+    private static long checksum(File f) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(f, "r");
+        try
+        {
+            FileChannel fc = raf.getChannel();
+            CRC32 c = new CRC32();
+            long n = fc.size();
+            for (long pos = 0 ; pos < n ; pos += CHUNK) c.update(fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK, n - pos)));
+            return c.getValue();
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+    
+    private static void close(java.io.Closeable c)
+    {
+        try
+        {
+            if (c != null)
+                c.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    private final File source;
+    private final File file;
+    private long size;
+    private long modified;
+    private long crc;
+    private boolean stamped;
+    private static final String SUFFIX = ".fpcache";
+    private static final int MAGIC = 0x53584643;
+    private static final int VERSION = 2;
+    private static final long CHUNK = 1L << 30;
+    private static final String ccMessage = "The cache is corrupted.";
+}
@@ -0,0 +1,35 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+/** A listener which is told about each flowpipe of an output as soon as it has been parsed.
+ ** NB : the listener is called by the thread which parses the output.
+ **/
+
+public interface FlowpipeListener
+{
+    /** Called when a flowpipe has been parsed, i.e. when its separator has been read.
+     ** @param output the output being parsed: its variables are known, and its flowpipes are the ones parsed so far.
+     ** @param index the index of the flowpipe in the output.
+     ** @param fp the flowpipe.
+     **/
+    void flowpipeParsed(SpaceExOutputParser output, int index, Flowpipe fp);
+}
@@ -0,0 +1,103 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/** An InputStream which follows a growing file: at the end of the file, it waits for new bytes,
+ ** until the file has not grown for a given time or the stream is stopped.
+ **/
+
+class FollowingInputStream extends InputStream
+{
+    /** Create a stream over a file.
+     ** @param in the stream of the file.
+     ** @param pollInterval the time between two checks of the file size, in milliseconds.
+     ** @param idleTimeout the time without new bytes after which the file is supposed to be complete, in milliseconds, or 0 to wait until the stream is stopped.
+     **/
+    FollowingInputStream(FileInputStream in, long pollInterval, long idleTimeout)
+    {
+        this.in = in;
+        this.pollInterval = pollInterval;
+        this.idleTimeout = idleTimeout;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xff);
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+            return 0;
+        long last = System.currentTimeMillis();
+        while (!stopped)
+        {
+            int r = in.read(b, off, len);
+            if (r > 0)
+                return r;
+            if (idleTimeout > 0 && System.currentTimeMillis() - last >= idleTimeout)
+                break;
+            try
+            {
+                Thread.sleep(pollInterval);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        return -1;
+    }
+    
+    @Override
+    public int available() throws IOException
+    {
+        return stopped ? 0 : in.available();
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        stopped = true;
+        in.close();
+    }
+    
+    /** Stop following the file: the next reads see its end.
+     **/
+    void stop()
+    {
+        stopped = true;
+    }
+    
+    private final FileInputStream in;
+    private final long pollInterval;
+    private final long idleTimeout;
+    private volatile boolean stopped = false;
+}
@@ -21,10 +21,9 @@
 
 package fr.imag.spaceex;
 
+import java.nio.DoubleBuffer;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 
 /** A class that represents an hyperplane evolving in time piecewise linearly.
  ** i.e. H = {x | d.x <= b(t)} and we have:
@@ -34,19 +33,90 @@ import java.util.Comparator;
 public class HyperplaneInTime
 {
     /** Create a new hyperplane evolving in time.
+     ** NB : the direction is stored sparsely, only its non-zero coordinates are kept.
      ** @param d a normal direction of the hyperplane.
      **/
     public HyperplaneInTime(double[] d)
     {
-        this.d = d;
+        setDirection(d);
+        storage = new ArrayBreakpointStorage();
+    }
+    
+    /** Create a new hyperplane evolving in time, whose direction is given sparsely.
+     ** The coordinates which are not given are zero, and a coordinate which is given twice takes its last value.
+     ** @param dimension the dimension of the vectorspace.
+     ** @param indices the indices of the given coordinates.
+     ** @param values the values of the given coordinates.
+     **/
+    public HyperplaneInTime(int dimension, int[] indices, double[] values)
+    {
+        setDirection(dimension, indices, values, indices.length);
+        storage = new ArrayBreakpointStorage();
+    }
+    
+    /** Create a new hyperplane evolving in time, whose direction is given by its non-zero coordinates,
+     ** and whose constraints in time are stored in a storage of the given factory (e.g. off-heap).
+     ** @param dimension the dimension of the vectorspace.
+     ** @param indices the indices of the coordinates.
+     ** @param values the values of the coordinates.
+     ** @param factory the factory of the storage of the constraints in time.
+     **/
+    public HyperplaneInTime(int dimension, int[] indices, double[] values, BreakpointStorageFactory factory)
+    {
+        setDirection(dimension, indices, values, indices.length);
+        storage = factory.newStorage();
+    }
+    
+    /* Create a new hyperplane evolving in time, whose direction is given by the n first coordinates of the arrays */
+    HyperplaneInTime(int dimension, int[] indices, double[] values, int n)
+    {
+        setDirection(dimension, indices, values, n);
+        storage = new ArrayBreakpointStorage();
+    }
+    
+    /* Create a new hyperplane evolving in time, whose direction is given by the n first coordinates of the arrays, with an empty storage */
+    HyperplaneInTime(int dimension, int[] indices, double[] values, int n, BreakpointStorage storage)
+    {
+        setDirection(dimension, indices, values, n);
+        this.storage = storage;
     }
     
     /** Create a copy of the given hyperplane with a different direction.
      **/
     public HyperplaneInTime(HyperplaneInTime h, double[] d)
     {            
-        this.d = d;
-        for (double[] constraint : h.constraintsInTime) addConstraintInTime(constraint[0], constraint[1]);
+        setDirection(d);
+        storage = copy(h.storage);
+    }
+    
+    /** Create a view of the given hyperplane in a larger vectorspace, where its direction is shifted by an offset.
+     ** The view shares the direction and the storage of the constraints in time which the given hyperplane has when the view is created,
+     ** so that the constraints later added to this storage are visible in the view. This lasts while the given hyperplane keeps its storage:
+     ** a hyperplane which is itself a view, or whose storage is read-only (e.g. read from a cache), takes its own copy when it is modified,
+     ** and the view then keeps the constraints it had before. The view gets its own copy of the constraints in time when it is modified itself.
+     ** @param h the hyperplane.
+     ** @param offset the index of the first coordinate of the direction of h in the larger vectorspace.
+     ** @param dimension the dimension of the larger vectorspace.
+     **/
+    public HyperplaneInTime(HyperplaneInTime h, int offset, int dimension)
+    {
+        if (offset < 0 || offset + h.dimension > dimension)
+            throw new FlowpipeException(odMessage);
+        this.indices = h.indices;
+        this.values = h.values;
+        this.offset = h.offset + offset;
+        this.dimension = dimension;
+        this.storage = h.storage;
+        this.sharedStorage = true;
+    }
+    
+    /* Create a new hyperplane evolving in time, whose sparse direction is already sorted, and whose constraints in time are already stored */
+    HyperplaneInTime(int dimension, int[] indices, double[] values, BreakpointStorage storage)
+    {
+        this.dimension = dimension;
+        this.indices = indices;
+        this.values = values;
+        this.storage = storage;
     }
     
     /** Give the dimension of the vectorspace where lives this hyperplane.
@@ -54,15 +124,44 @@ public class HyperplaneInTime
      **/
     public int getDimension()
     {
-        return d.length;
+        return dimension;
     }
     
     /** Give the normal direction of the hyperplane.
+     ** NB : the direction is stored sparsely, so the dense vector is built at each call.
      ** @return the direction.
      **/
     public double[] getNormalDirection()
     {
-        return d;
+        double[] res = new double[dimension];
+        copyDirection(res);
+        return res;
+    }
+    
+    /** Give the number of non-zero coordinates of the normal direction.
+     ** @return the number of non-zero coordinates.
+     **/
+    public int getNumberOfNonZeros()
+    {
+        return indices.length;
+    }
+    
+    /** Give the index of a non-zero coordinate of the normal direction, the indices being increasing.
+     ** @param k the rank of the non-zero coordinate.
+     ** @return the index of the coordinate.
+     **/
+    public int getNonZeroIndex(int k)
+    {
+        return offset + indices[k];
+    }
+    
+    /** Give the value of a non-zero coordinate of the normal direction.
+     ** @param k the rank of the non-zero coordinate.
+     ** @return the value of the coordinate.
+     **/
+    public double getNonZeroValue(int k)
+    {
+        return values[k];
     }
     
     /** Add a constraint at a specific time.
@@ -70,7 +169,11 @@ public class HyperplaneInTime
      **/
     public void addConstraintInTime(double t, double b)
     {
-        constraintsInTime.add(new double[] {t, b});
+        if (frozen)
+            throw new FlowpipeException(fzMessage);
+        if (sharedStorage || !storage.isWritable())
+            detachStorage();
+        storage.add(t, b);
     }
     
     /** Evaluate b(t).
@@ -79,68 +182,480 @@ public class HyperplaneInTime
      **/
     public double getConstraint(double t)
     {
-        checkForSorted();
-        /* searching for an interval t in [ti-1, ti] if possible */
-        if (t < constraintsInTime.get(0)[0])
-            return constraintsInTime.get(0)[1];
-        int i = 1;
-        int n = constraintsInTime.size();
-        while (i < n && constraintsInTime.get(i)[0] < t) i++;
-        if (i == n)
-            return constraintsInTime.get(i-1)[1];
-        /* if t is in an existent interval, where have to compute b(t) */
-        else
+        seal();
+        return evaluate(search(t), t);
+    }
+    
+    /** Give b(t) at several times at once, without any allocation.
+     ** If the times are increasing, they are swept together with the time steps, otherwise each one is searched.
+     ** @param times the times.
+     ** @param res the array where b(times[i]) is written, at offset+i.
+     ** @param offset the index of the first value in res.
+     **/
+    public void getConstraints(double[] times, double[] res, int offset)
+    {
+        seal();
+        evaluate(times, isIncreasing(times), res, offset);
+    }
+    
+    /** Give a simplified copy of this hyperplane, with fewer constraints in time, whose bound is never below the bound of this hyperplane.
+     ** The bound is approximated by a greedy piecewise linear reduction: each segment starts at the end of the previous one, and is extended
+     ** as long as some line stays above all the bounds it covers, and within the tolerance above them. The vertices are a subset of the time steps,
+     ** which are only raised (and by a few ulps for the rounding), so that the simplified bound stays a sound upper bound.
+     ** The tolerance at a time step is the greater of the absolute tolerance and the relative tolerance times |b(ti)|,
+     ** and it is never below the few ulps of the rounding margin (so that a zero tolerance keeps the time steps, only raised).
+     ** @param absTol the absolute tolerance.
+     ** @param relTol the relative tolerance.
+     ** @return the simplified hyperplane (with the same direction).
+     ** @exception FlowpipeException thrown if a tolerance is negative.
+     **/
+    public HyperplaneInTime simplify(double absTol, double relTol)
+    {
+        if (!(absTol >= 0) || !(relTol >= 0))
+            throw new FlowpipeException(ntMessage);
+        seal();
+        BreakpointStorage s = storage;
+        int n = s.size();
+        HyperplaneInTime res = withoutConstraints();
+        if (n == 0)
+            return res;
+        /* the segments are above the time steps by a margin, which covers the rounding of evaluate between them */
+        double m = 0.0;
+        for (int i = 0 ; i < n ; i++) m = Math.max(m, Math.abs(s.getBound(i)));
+        double margin = 16*Math.ulp(m);
+        /* anchor, i.e. the last vertex */
+        int a = 0;
+        double ta = s.getTime(0);
+        double ya = s.getBound(0) + margin;
+        res.addConstraintInTime(ta, ya);
+        int j = 1;
+        while (j < n)
         {
-            double tiM1 = constraintsInTime.get(i-1)[0];
-            double ti = constraintsInTime.get(i)[0];
-            double tp = (t - tiM1)/(ti - tiM1);
-            return (1-tp)*constraintsInTime.get(i-1)[1] + tp*constraintsInTime.get(i)[1];
+            /* a step at the time of the anchor is kept as it is */
+            if (s.getTime(j) == ta)
+            {
+                ya = s.getBound(j) + margin;
+                a = j++;
+                res.addConstraintInTime(ta, ya);
+                continue;
+            }
+            /* the cone of the slopes from the anchor which are above the bounds, and within the tolerance */
+            double smin = Double.NEGATIVE_INFINITY;
+            double smax = Double.POSITIVE_INFINITY;
+            int e = j;
+            for ( ; e < n ; e++)
+            {
+                double t = s.getTime(e);
+                if (e > j && t == s.getTime(e-1))
+                    break;
+                double b = s.getBound(e);
+                double dt = t - ta;
+                double lo = Math.max(smin, (b + margin - ya)/dt);
+                double hi = Math.min(smax, (b + Math.max(margin, Math.max(absTol, relTol*Math.abs(b))) - ya)/dt);
+                if (lo > hi)
+                    break;
+                smin = lo;
+                smax = hi;
+            }
+            /* the lowest segment, raised until it is above the bounds as evaluated, NB : if no slope fits (which the margin should prevent),
+               the next time step is kept as it is */
+            int k = Math.max(e-1, j);
+            double tk = s.getTime(k);
+            double yk = s.getBound(k) + margin;
+            if (e > j)
+                yk = Math.max(ya + smin*(tk - ta), yk);
+            while (!isAbove(a, k, ya, yk, margin/2)) yk = Math.nextUp(yk);
+            res.addConstraintInTime(tk, yk);
+            a = k;
+            ta = tk;
+            ya = yk;
+            j = k+1;
         }
+        return res;
     }
     
     /** Give a list of the "time steps" of this hyperplane.
+     ** NB : the times are boxed, getNumberOfTimeSteps and getTimeStep give them without boxing.
      ** @return the list.
      **/
     public List <Double> getTimeSteps()
     {
-        List <Double> res = new ArrayList <Double> ();
-        for (double[] constraint : constraintsInTime) res.add(constraint[0]);
+        int n = storage.size();
+        List <Double> res = new ArrayList <Double> (n);
+        for (int i = 0 ; i < n ; i++) res.add(storage.getTime(i));
         return res;
     }
     
+    /** Give the number of "time steps" of this hyperplane.
+     ** @return the number of time steps.
+     **/
+    public int getNumberOfTimeSteps()
+    {
+        return storage.size();
+    }
+    
+    /** Give a "time step" of this hyperplane, the time steps being sorted.
+     ** @param i the index of the time step.
+     ** @return the time.
+     **/
+    public double getTimeStep(int i)
+    {
+        seal();
+        return storage.getTime(i);
+    }
+    
+    /** Give the constraint at a "time step" of this hyperplane, the time steps being sorted.
+     ** @param i the index of the time step.
+     ** @return b(ti).
+     **/
+    public double getConstraintAtTimeStep(int i)
+    {
+        seal();
+        return storage.getBound(i);
+    }
+    
+    /** Give an immutable snapshot of this hyperplane, whose constraints in time are sorted once in a read-only storage.
+     ** The constraints on the heap are copied into compact arrays, whereas the ones outside of the heap (off-heap or in a scratch file)
+     ** are frozen in place, as a read-only view which the later modifications of this hyperplane do not change.
+     ** Any number of threads can evaluate the snapshot without locking, and adding a constraint in time to it fails.
+     ** @return the snapshot (which shares the direction), or this hyperplane if it is already frozen.
+     **/
+    public HyperplaneInTime freeze()
+    {
+        if (frozen)
+            return this;
+        seal();
+        BreakpointStorage s = storage;
+        BreakpointStorage fs;
+        if (s instanceof OffHeapBreakpointStorage)
+            fs = ((OffHeapBreakpointStorage) s).readOnlyView();
+        else if (!s.isWritable())
+            fs = s;
+        else
+        {
+            int n = s.size();
+            double[] times = new double[n];
+            double[] bounds = new double[n];
+            for (int i = 0 ; i < n ; i++)
+            {
+                times[i] = s.getTime(i);
+                bounds[i] = s.getBound(i);
+            }
+            fs = new BufferBreakpointStorage(DoubleBuffer.wrap(times), DoubleBuffer.wrap(bounds));
+        }
+        HyperplaneInTime res = new HyperplaneInTime(this, fs);
+        res.frozen = true;
+        return res;
+    }
+    
+    /** Tell whether the hyperplane is a frozen snapshot.
+     ** @return true if it is.
+     **/
+    public boolean isFrozen()
+    {
+        return frozen;
+    }
+    
+    /** Sort the constraints in time, and trim the storage to their number.
+     ** It is done lazily before any evaluation, and undone by any new constraint.
+     ** NB : concurrent evaluations can seal the hyperplane at the same time, but not concurrent evaluations and modifications.
+     **/
+    public void seal()
+    {
+        if (!storage.isSealed())
+        {
+            if (!storage.isWritable())
+                detachStorage();
+            storage.seal();
+        }
+    }
+    
     /** Give a textual description of the current hyperplane in time.
      ** @return the textual description.
      **/
     @Override
     public String toString()
     {
+        double[] dir = getNormalDirection();
         String res = "( ";
-        for (int i = 0 ; i < d.length ; i++) res += d[i] + " ";
+        for (int i = 0 ; i < dir.length ; i++) res += dir[i] + " ";
         res += ") ";
-        for (double[] constraint : constraintsInTime) res += "[" + constraint[0] + " -> " + constraint[1] + "] ";
+        for (int i = 0 ; i < storage.size() ; i++) res += "[" + storage.getTime(i) + " -> " + storage.getBound(i) + "] ";
         return res;
     }
     
-    private void checkForSorted()
+    /* the storage of the constraints in time */
+    BreakpointStorage getStorage()
     {
-        if (!sorted)
+        return storage;
+    }
+    
+    /* the number of modifications of the constraints in time, so that the users can invalidate what they derived from them */
+    int getModificationCount()
+    {
+        return detachedModifications + storage.getModificationCount();
+    }
+    
+    /* a hyperplane with the same direction (shared), and no constraint in time */
+    HyperplaneInTime withoutConstraints()
+    {
+        return new HyperplaneInTime(this, storage.newStorage());
+    }
+    
+    /* a hyperplane with the same direction (shared), and the given storage */
+    private HyperplaneInTime(HyperplaneInTime h, BreakpointStorage storage)
+    {
+        this.indices = h.indices;
+        this.values = h.values;
+        this.offset = h.offset;
+        this.dimension = h.dimension;
+        this.storage = storage;
+    }
+    
+    /* share the arrays of the direction with the identical direction of a pool */
+    void internDirection(DirectionPool pool)
+    {
+        DirectionPool.Direction dir = pool.intern(indices, values);
+        indices = dir.indices;
+        values = dir.values;
+    }
+    
+    /* the direction, scaled so that its largest absolute coordinate is 1, to compare the directions up to a positive factor */
+    DirectionPool.Direction normalizedDirection()
+    {
+        double[] val = new double[values.length];
+        double s = scale();
+        for (int k = 0 ; k < val.length ; k++) val[k] = values[k]/s;
+        int[] idx = new int[indices.length];
+        for (int k = 0 ; k < idx.length ; k++) idx[k] = offset + indices[k];
+        return new DirectionPool.Direction(idx, val);
+    }
+    
+    /* the largest absolute coordinate of the direction */
+    double scale()
+    {
+        double s = 0.0;
+        for (double v : values) s = Math.max(s, Math.abs(v));
+        return s;
+    }
+    
+    /* write the direction in a vector of the dimension of the hyperplane (or more), the other coordinates being left unchanged */
+    void copyDirection(double[] dst)
+    {
+        for (int k = 0 ; k < indices.length ; k++) dst[offset + indices[k]] = values[k];
+    }
+    
+    private void setDirection(double[] d)
+    {
+        int nnz = 0;
+        for (double x : d)
+            if (x != 0.0)
+                nnz++;
+        int[] idx = new int[nnz];
+        double[] val = new double[nnz];
+        nnz = 0;
+        for (int i = 0 ; i < d.length ; i++)
+        {
+            if (d[i] != 0.0)
+            {
+                idx[nnz] = i;
+                val[nnz++] = d[i];
+            }
+        }
+        dimension = d.length;
+        indices = idx;
+        values = val;
+    }
+    
+    /* sort the given coordinates by index, keeping the last value of a repeated index and dropping the zeros */
+    private void setDirection(int dimension, int[] idx, double[] val, int n)
+    {
+        int[] si = new int[n];
+        double[] sv = new double[n];
+        int m = 0;
+        for (int k = 0 ; k < n ; k++)
+        {
+            if (idx[k] < 0 || idx[k] >= dimension)
+                throw new FlowpipeException(odMessage);
+            /* insertion, directions having few coordinates */
+            int j = m;
+            while (j > 0 && si[j-1] > idx[k]) j--;
+            if (j > 0 && si[j-1] == idx[k])
+                sv[j-1] = val[k];
+            else
+            {
+                System.arraycopy(si, j, si, j+1, m-j);
+                System.arraycopy(sv, j, sv, j+1, m-j);
+                si[j] = idx[k];
+                sv[j] = val[k];
+                m++;
+            }
+        }
+        int nnz = 0;
+        for (int k = 0 ; k < m ; k++)
+            if (sv[k] != 0.0)
+                nnz++;
+        indices = new int[nnz];
+        values = new double[nnz];
+        nnz = 0;
+        for (int k = 0 ; k < m ; k++)
+        {
+            if (sv[k] != 0.0)
+            {
+                indices[nnz] = si[k];
+                values[nnz++] = sv[k];
+            }
+        }
+        this.dimension = dimension;
+    }
+    
+    /* replace the storage of the constraints in time by an own writable copy */
+    private void detachStorage()
+    {
+        detachedModifications += storage.getModificationCount() + 1;
+        storage = copy(storage);
+        sharedStorage = false;
+    }
+    
+    /* a writable copy of the breakpoints, in the same kind of storage if possible */
+    private static BreakpointStorage copy(BreakpointStorage s)
+    {
+        BreakpointStorage res = s.newStorage();
+        int n = s.size();
+        for (int i = 0 ; i < n ; i++) res.add(s.getTime(i), s.getBound(i));
+        if (s.isSealed())
+            res.seal();
+        return res;
+    }
+    
+    /* the index of the first time step which is not before t, by binary search (the hyperplane must be sealed) */
+    int search(double t)
+    {
+        int i = 0;
+        int j = storage.size();
+        while (i < j)
+        {
+            int m = (i + j) >>> 1;
+            if (storage.getTime(m) < t)
+                i = m+1;
+            else
+                j = m;
+        }
+        return i;
+    }
+    
+    /* b(t), knowing the index k of the first time step which is not before t (the hyperplane must be sealed) */
+    double evaluate(int k, double t)
+    {
+        /* searching for an interval t in [ti-1, ti] if possible */
+        BreakpointStorage s = storage;
+        if (t < s.getTime(0))
+            return s.getBound(0);
+        int i = Math.max(k, 1);
+        int n = s.size();
+        if (i >= n)
+            return s.getBound(n-1);
+        /* if t is in an existent interval, where have to compute b(t) */
+        else
+        {
+            double tiM1 = s.getTime(i-1);
+            double ti = s.getTime(i);
+            double tp = (t - tiM1)/(ti - tiM1);
+            return (1-tp)*s.getBound(i-1) + tp*s.getBound(i);
+        }
+    }
+    
+    /* the largest bound at t, i.e. the greater of the bounds before and after a jump at t (the hyperplane is sealed) */
+    double getLargestConstraint(double t)
+    {
+        seal();
+        BreakpointStorage s = storage;
+        int k = search(t);
+        int n = s.size();
+        if (k == n || s.getTime(k) != t)
+            return evaluate(k, t);
+        double res = s.getBound(k);
+        for (int i = k+1 ; i < n && s.getTime(i) == t ; i++) res = Math.max(res, s.getBound(i));
+        return res;
+    }
+    
+    /* b(t) at each time, the hyperplane being sealed: one cursor if the times are increasing, a search for each one otherwise */
+    void evaluate(double[] times, boolean increasing, double[] res, int offset)
+    {
+        int nt = times.length;
+        if (increasing)
         {
-            Collections.sort(constraintsInTime, new Comparator <double[]> ()
-                {
-                    public int compare(double[] a, double[] b)
-                    {
-                        if (a[0] < b[0])
-                            return -1;
-                        else if (a[0] == b[0])
-                            return 0;
-                        else return 1;
-                    }
-                });
+            BreakpointStorage s = storage;
+            int n = s.size();
+            int k = 0;
+            for (int i = 0 ; i < nt ; i++)
+            {
+                double t = times[i];
+                while (k < n && s.getTime(k) < t) k++;
+                res[offset+i] = evaluate(k, t);
+            }
         }
-        sorted = true;
+        else
+        {
+            for (int i = 0 ; i < nt ; i++) res[offset+i] = evaluate(search(times[i]), times[i]);
+        }
+    }
+    
+    /* the bounds at the given times, written with absolute puts into a buffer from an index (the hyperplane must be sealed) */
+    void evaluate(double[] times, boolean increasing, DoubleBuffer res, int index)
+    {
+        int nt = times.length;
+        if (increasing)
+        {
+            BreakpointStorage s = storage;
+            int n = s.size();
+            int k = 0;
+            for (int i = 0 ; i < nt ; i++)
+            {
+                double t = times[i];
+                while (k < n && s.getTime(k) < t) k++;
+                res.put(index+i, evaluate(k, t));
+            }
+        }
+        else
+        {
+            for (int i = 0 ; i < nt ; i++) res.put(index+i, evaluate(search(times[i]), times[i]));
+        }
+    }
+    
+    /* true if the segment from (ta, ya) to (tk, yk) is above the time steps between a and k by a margin, as evaluated (the hyperplane must be sealed) */
+    private boolean isAbove(int a, int k, double ya, double yk, double margin)
+    {
+        BreakpointStorage s = storage;
+        double ta = s.getTime(a);
+        double tk = s.getTime(k);
+        for (int i = a+1 ; i < k ; i++)
+        {
+            double tp = (s.getTime(i) - ta)/(tk - ta);
+            if ((1-tp)*ya + tp*yk < s.getBound(i) + margin)
+                return false;
+        }
+        return true;
+    }
+    
+    /* true if the times are increasing (not necessarily strictly) */
+    static boolean isIncreasing(double[] times)
+    {
+        for (int i = 1 ; i < times.length ; i++)
+            if (!(times[i-1] <= times[i]))
+                return false;
+        return true;
     }
     
-    private double[] d;
-    private List <double[]> constraintsInTime = new ArrayList <double[]>();
-    private boolean sorted = false;
+    private int[] indices;
+    private double[] values;
+    private int offset = 0;
+    private int dimension;
+    private BreakpointStorage storage;
+    private boolean sharedStorage = false;
+    private boolean frozen = false;
+    private int detachedModifications = 0;
+    private static final String fzMessage = "The hyperplane is frozen.";
+    private static final String ntMessage = "The tolerances must be non-negative.";
+    private static final String odMessage = "The direction does not fit in the given vectorspace.";
 }
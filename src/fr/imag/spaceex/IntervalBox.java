@@ -0,0 +1,108 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+/** An axis-aligned box, given by an interval for each variable, which can be unbounded (infinite bounds) or empty.
+ **/
+
+public class IntervalBox
+{
+    /** Create a box.
+     ** @param lower the lower bounds of the variables.
+     ** @param upper the upper bounds of the variables.
+     ** @exception FlowpipeException thrown if the bounds do not have the same dimension.
+     **/
+    public IntervalBox(double[] lower, double[] upper)
+    {
+        if (lower.length != upper.length)
+            throw new FlowpipeException(dmMessage);
+        this.lower = lower.clone();
+        this.upper = upper.clone();
+    }
+    
+    /** Give the dimension of the box.
+     ** @return the number of variables.
+     **/
+    public int getDimension()
+    {
+        return lower.length;
+    }
+    
+    /** Give the lower bound of a variable.
+     ** @param i the index of the variable.
+     ** @return the lower bound, possibly -infinity.
+     **/
+    public double getLower(int i)
+    {
+        return lower[i];
+    }
+    
+    /** Give the upper bound of a variable.
+     ** @param i the index of the variable.
+     ** @return the upper bound, possibly +infinity.
+     **/
+    public double getUpper(int i)
+    {
+        return upper[i];
+    }
+    
+    /** Tell whether the box is empty, i.e. whether the interval of a variable is empty.
+     ** @return true if it is.
+     **/
+    public boolean isEmpty()
+    {
+        for (int i = 0 ; i < lower.length ; i++)
+            if (lower[i] > upper[i])
+                return true;
+        return false;
+    }
+    
+    /** Tell whether the box intersects another one (e.g. an unsafe box).
+     ** @param b the other box.
+     ** @return true if they intersect.
+     ** @exception FlowpipeException thrown if the boxes do not have the same dimension.
+     **/
+    public boolean intersects(IntervalBox b)
+    {
+        if (b.lower.length != lower.length)
+            throw new FlowpipeException(dmMessage);
+        for (int i = 0 ; i < lower.length ; i++)
+            if (Math.max(lower[i], b.lower[i]) > Math.min(upper[i], b.upper[i]))
+                return false;
+        return true;
+    }
+    
+    /** Give a textual description of the box.
+     ** @return the textual description.
+     **/
+    @Override
+    public String toString()
+    {
+        String res = "box:";
+        for (int i = 0 ; i < lower.length ; i++) res += " [" + lower[i] + ", " + upper[i] + "]";
+        return res;
+    }
+    
+    private final double[] lower;
+    private final double[] upper;
+    private static final String dmMessage = "The bounds do not have the same dimension.";
+}
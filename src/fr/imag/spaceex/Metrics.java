@@ -0,0 +1,51 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+/** The registration of the metrics listener of the library, which is disabled (null) by default.
+ ** When it is disabled, the only cost is a check of the listener for each parsing and each conversion into polyhedra.
+ **/
+
+public final class Metrics
+{
+    private Metrics()
+    {
+    }
+    
+    /** Register the listener of the metrics of the library, which replaces the previous one.
+     ** @param l the listener, or null to disable the metrics.
+     **/
+    public static void setListener(MetricsListener l)
+    {
+        listener = l;
+    }
+    
+    /** Give the listener of the metrics of the library.
+     ** @return the listener, or null if the metrics are disabled.
+     **/
+    public static MetricsListener getListener()
+    {
+        return listener;
+    }
+    
+    static volatile MetricsListener listener;
+}
@@ -0,0 +1,41 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+/** A listener which is told about the work of the library, to measure where the time goes (see Metrics to register it).
+ ** NB : the listener is called by the threads which do the work, so it must be thread-safe.
+ **/
+
+public interface MetricsListener
+{
+    /** Called when an output has been parsed, whatever the way it has been read (file, reader, process, parallel parsing, ...).
+     ** @param metrics the figures of the parsing.
+     **/
+    void outputParsed(ParsingMetrics metrics);
+    
+    /** Called when a flowpipe has been converted into a list of polyhedra by polyhedralRepresentation.
+     ** @param polyhedra the number of polyhedra which have been built (the cached ones are not counted).
+     ** @param hyperplanes the number of hyperplanes of the flowpipe, i.e. of spatial constraints of each polyhedron.
+     ** @param time the time spent in the conversion, in nanoseconds.
+     **/
+    void polyhedraBuilt(int polyhedra, int hyperplanes, long time);
+}
@@ -0,0 +1,229 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.nio.DoubleBuffer;
+
+/** A writable storage of breakpoints in two buffers outside of the heap (direct or mapped), which grow geometrically.
+ ** NB : a buffer being indexed by an int, a storage holds at most 2^28 breakpoints.
+ **/
+
+class OffHeapBreakpointStorage implements BreakpointStorage
+{
+    /** The allocator of the buffers of a storage. **/
+    interface Allocator
+    {
+        /** Allocate a buffer.
+         ** @param n the number of doubles.
+         ** @return the buffer, whose limit is n.
+         **/
+        DoubleBuffer allocate(int n);
+        
+        /** Give back a buffer of this allocator which is not used any more, so that its memory can be reused.
+         ** @param b the buffer.
+         **/
+        void release(DoubleBuffer b);
+    }
+    
+    /** Create an empty storage.
+     ** @param allocator the allocator of its buffers.
+     **/
+    OffHeapBreakpointStorage(Allocator allocator)
+    {
+        this.allocator = allocator;
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    public double getTime(int i)
+    {
+        if (i >= size)
+            throw new IndexOutOfBoundsException();
+        return times.get(i);
+    }
+    
+    public double getBound(int i)
+    {
+        if (i >= size)
+            throw new IndexOutOfBoundsException();
+        return bounds.get(i);
+    }
+    
+    public boolean isWritable()
+    {
+        return true;
+    }
+    
+    public void add(double t, double b)
+    {
+        if (times == null || size == times.limit())
+            grow();
+        times.put(size, t);
+        bounds.put(size, b);
+        size++;
+        sealed = false;
+        modifications++;
+    }
+    
+    /* NB : the buffers are not trimmed, since it would need a copy outside of the heap */
+    public synchronized void seal()
+    {
+        if (sealed)
+            return;
+        boolean sorted = true;
+        for (int i = 1 ; i < size && sorted ; i++) sorted = times.get(i-1) <= times.get(i);
+        if (!sorted)
+        {
+            /* the buffers of a read-only view are left as they are */
+            if (viewed)
+                reallocate(times.limit());
+            sort();
+        }
+        sealed = true;
+    }
+    
+    /** Give a read-only view of the sorted breakpoints, without copy.
+     ** The view is kept intact by the later modifications of this storage: the breakpoints are only added after it,
+     ** and the buffers are copied before they are sorted again.
+     ** @return the view.
+     **/
+    synchronized BreakpointStorage readOnlyView()
+    {
+        seal();
+        if (times == null)
+            return new BufferBreakpointStorage(DoubleBuffer.allocate(0), DoubleBuffer.allocate(0));
+        viewed = true;
+        DoubleBuffer t = times.asReadOnlyBuffer();
+        DoubleBuffer b = bounds.asReadOnlyBuffer();
+        t.limit(size);
+        b.limit(size);
+        return new BufferBreakpointStorage(t, b);
+    }
+    
+    public boolean isSealed()
+    {
+        return sealed;
+    }
+    
+    public int getModificationCount()
+    {
+        return modifications;
+    }
+    
+    public BreakpointStorage newStorage()
+    {
+        return new OffHeapBreakpointStorage(allocator);
+    }
+    
+    private void grow()
+    {
+        int cap = times == null ? 0 : times.limit();
+        if (cap >= MAX_CAPACITY)
+            throw new FlowpipeException(tmMessage);
+        reallocate((int) Math.min(MAX_CAPACITY, Math.max(8L, 2L*cap)));
+    }
+    
+    /* move the breakpoints into new buffers of the given capacity, the previous ones being released unless a read-only view uses them */
+    private void reallocate(int cap)
+    {
+        DoubleBuffer nt = allocator.allocate(cap);
+        DoubleBuffer nb = allocator.allocate(cap);
+        for (int i = 0 ; i < size ; i++)
+        {
+            nt.put(i, times.get(i));
+            nb.put(i, bounds.get(i));
+        }
+        if (times != null && !viewed)
+        {
+            allocator.release(times);
+            allocator.release(bounds);
+        }
+        times = nt;
+        bounds = nb;
+        viewed = false;
+    }
+    
+    /* stable merge sort of the breakpoints by time, as for the arrays, with buffers of the same kind which are released afterwards */
+    private void sort()
+    {
+        int n = size;
+        DoubleBuffer tt = allocator.allocate(n);
+        DoubleBuffer tb = allocator.allocate(n);
+        DoubleBuffer rt = tt;
+        DoubleBuffer rb = tb;
+        DoubleBuffer st = times;
+        DoubleBuffer sb = bounds;
+        for (int w = 1 ; w < n ; w *= 2)
+        {
+            for (int lo = 0 ; lo < n ; lo += 2*w)
+            {
+                int mid = Math.min(lo + w, n);
+                int hi = Math.min(lo + 2*w, n);
+                int i = lo;
+                int j = mid;
+                for (int k = lo ; k < hi ; k++)
+                {
+                    if (j < hi && (i == mid || st.get(j) < st.get(i)))
+                    {
+                        tt.put(k, st.get(j));
+                        tb.put(k, sb.get(j++));
+                    }
+                    else
+                    {
+                        tt.put(k, st.get(i));
+                        tb.put(k, sb.get(i++));
+                    }
+                }
+            }
+            /* the roles of the buffers are swapped instead of copying */
+            DoubleBuffer x = st;
+            st = tt;
+            tt = x;
+            x = sb;
+            sb = tb;
+            tb = x;
+        }
+        if (st != times)
+        {
+            for (int i = 0 ; i < n ; i++)
+            {
+                times.put(i, st.get(i));
+                bounds.put(i, sb.get(i));
+            }
+        }
+        allocator.release(rt);
+        allocator.release(rb);
+    }
+    
+    private final Allocator allocator;
+    private DoubleBuffer times;
+    private DoubleBuffer bounds;
+    private int size = 0;
+    private volatile boolean sealed = true;
+    private boolean viewed = false;
+    private int modifications = 0;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE/8;
+    private static final String tmMessage = "There are too many constraints in time for an off-heap storage.";
+}
@@ -0,0 +1,421 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/** A builder of the hyperplanes in time of a flowpipe given as a sequence of polyhedra, each one being a conjunction of linear constraints.
+ ** The coefficients of a constraint are accumulated term by term, and the directions are interned by value in a table of the builder,
+ ** so that a repeated direction is only stored once.
+ ** Each polyhedron holds on the time interval given by its constraints on time alone, which must be bounded,
+ ** and its constraints in space and time a.x + s.t <= b are bounds b - s.t of the direction a, which are linear on the interval.
+ ** NB : only the directions which are bounded in all the polyhedra are kept, which over-approximates the others.
+ **/
+
+class OuterConstraintsBuilder
+{
+    /** Create a builder.
+     ** @param dimension the dimension of the vectorspace of the directions.
+     **/
+    OuterConstraintsBuilder(int dimension)
+    {
+        coefficients = new double[dimension];
+        touched = new int[dimension];
+        isTouched = new boolean[dimension];
+        idx = new int[Math.max(dimension, 1)];
+        val = new double[Math.max(dimension, 1)];
+    }
+    
+    /** Start a new polyhedron. **/
+    void beginPolyhedron()
+    {
+        lower = Double.NEGATIVE_INFINITY;
+        upper = Double.POSITIVE_INFINITY;
+        constraints = 0;
+    }
+    
+    /** Add a term c.x_i to the current constraint.
+     ** @param i the index of the variable.
+     ** @param c the coefficient.
+     **/
+    void addTerm(int i, double c)
+    {
+        if (!isTouched[i])
+        {
+            isTouched[i] = true;
+            touched[nTouched++] = i;
+        }
+        coefficients[i] += c;
+    }
+    
+    /** Add a term c.t to the current constraint.
+     ** @param c the coefficient.
+     **/
+    void addTimeTerm(double c)
+    {
+        time += c;
+    }
+    
+    /** Add a constant term to the current constraint.
+     ** @param c the constant.
+     **/
+    void addConstant(double c)
+    {
+        constant += c;
+    }
+    
+    /** End the current constraint, whose terms have been moved to the left side (a.x + s.t + c REL 0).
+     ** The strict relations are handled as the large ones, the polyhedra being closed.
+     ** @param relation LESS, GREATER or EQUAL.
+     **/
+    void endConstraint(int relation)
+    {
+        /* sparse direction, with increasing indices */
+        Arrays.sort(touched, 0, nTouched);
+        int n = 0;
+        for (int k = 0 ; k < nTouched ; k++)
+        {
+            int i = touched[k];
+            if (coefficients[i] != 0.0)
+            {
+                idx[n] = i;
+                val[n++] = coefficients[i];
+            }
+            coefficients[i] = 0.0;
+            isTouched[i] = false;
+        }
+        nTouched = 0;
+        if (relation != GREATER)
+            addConstraint(n, 1.0, time, -constant);
+        if (relation != LESS)
+            addConstraint(n, -1.0, -time, constant);
+        time = 0.0;
+        constant = 0.0;
+    }
+    
+    /** End the current polyhedron, whose constraints are turned into bounds on its time interval. An empty time interval drops the polyhedron.
+     ** @exception SpaceExOutputParserException thrown if the time interval of the polyhedron is not bounded.
+     **/
+    void endPolyhedron()
+    {
+        if (lower == Double.NEGATIVE_INFINITY || upper == Double.POSITIVE_INFINITY)
+            throw new SpaceExOutputParserException(SpaceExOutputParser.tmMessage);
+        if (lower > upper)
+            return;
+        if (polyhedra == lowers.length)
+        {
+            lowers = Arrays.copyOf(lowers, 2*polyhedra);
+            uppers = Arrays.copyOf(uppers, 2*polyhedra);
+        }
+        lowers[polyhedra] = lower;
+        uppers[polyhedra] = upper;
+        /* NB : the lines of a polyhedron are contiguous in the lines of a direction */
+        for (int k = 0 ; k < constraints ; k++)
+        {
+            int j = constraintDirections[k];
+            if (seen[j] != polyhedra+1)
+            {
+                seen[j] = polyhedra+1;
+                present[j]++;
+            }
+            int l = lines[j];
+            if (l == linePolyhedra[j].length)
+            {
+                linePolyhedra[j] = Arrays.copyOf(linePolyhedra[j], Math.max(4, 2*l));
+                lineSlopes[j] = Arrays.copyOf(lineSlopes[j], Math.max(4, 2*l));
+                lineBounds[j] = Arrays.copyOf(lineBounds[j], Math.max(4, 2*l));
+            }
+            linePolyhedra[j][l] = polyhedra;
+            lineSlopes[j][l] = constraintSlopes[k];
+            lineBounds[j][l] = constraintBounds[k];
+            lines[j] = l+1;
+        }
+        polyhedra++;
+        order = null;
+    }
+    
+    /** Give the number of distinct directions of the constraints.
+     ** @return the number of directions.
+     **/
+    int getNumberOfDirections()
+    {
+        return directions;
+    }
+    
+    /** Tell whether a direction is bounded in all the polyhedra.
+     ** @param j the index of the direction.
+     ** @return true if it is.
+     **/
+    boolean isBoundedEverywhere(int j)
+    {
+        return present[j] == polyhedra;
+    }
+    
+    /** Give the indices of the non-zero coordinates of a direction.
+     ** @param j the index of the direction.
+     ** @return the increasing indices, which must not be modified.
+     **/
+    int[] getIndices(int j)
+    {
+        return directionIndices[j];
+    }
+    
+    /** Give the values of the non-zero coordinates of a direction.
+     ** @param j the index of the direction.
+     ** @return the values, which must not be modified.
+     **/
+    double[] getValues(int j)
+    {
+        return directionValues[j];
+    }
+    
+    /** Add the bounds of a direction which is bounded in all the polyhedra to a hyperplane, as constraints in time.
+     ** In a polyhedron, the bound is the lowest of its lines b - s.t, and over the polyhedra, it is the highest bound of the polyhedra which hold at t.
+     ** The constraints in time are at the ends of the time intervals and at the crossings of the lines of a polyhedron, so that each bound is linear between them.
+     ** The highest of linear bounds being convex, the linear interpolation between the constraints stays above it, even where the polyhedra overlap.
+     ** @param j the index of the direction.
+     ** @param h the hyperplane.
+     **/
+    void addConstraintsInTime(int j, HyperplaneInTime h)
+    {
+        int[] lp = linePolyhedra[j];
+        double[] ls = lineSlopes[j];
+        double[] lb = lineBounds[j];
+        /* the lines of the polyhedron p are first[p] .. first[p+1]-1 */
+        int[] first = new int[polyhedra+1];
+        for (int l = lines[j]-1 ; l >= 0 ; l--) first[lp[l]] = l;
+        first[polyhedra] = lines[j];
+        /* the times of the constraints */
+        double[] times = new double[2*polyhedra];
+        int n = 0;
+        for (int p = 0 ; p < polyhedra ; p++)
+        {
+            if (n+2 > times.length)
+                times = Arrays.copyOf(times, 2*n);
+            times[n++] = lowers[p];
+            times[n++] = uppers[p];
+            for (int a = first[p] ; a < first[p+1] ; a++)
+            {
+                for (int b = a+1 ; b < first[p+1] ; b++)
+                {
+                    if (ls[a] == ls[b])
+                        continue;
+                    double tc = (lb[a] - lb[b])/(ls[a] - ls[b]);
+                    if (tc > lowers[p] && tc < uppers[p])
+                    {
+                        if (n == times.length)
+                            times = Arrays.copyOf(times, 2*n);
+                        times[n++] = tc;
+                    }
+                }
+            }
+        }
+        Arrays.sort(times, 0, n);
+        /* sweep over the times, with the polyhedra which have begun */
+        int[] ord = order();
+        int[] active = new int[polyhedra];
+        int na = 0;
+        int next = 0;
+        for (int i = 0 ; i < n ; i++)
+        {
+            double t = times[i];
+            if (i > 0 && t == times[i-1])
+                continue;
+            while (next < polyhedra && lowers[ord[next]] <= t) active[na++] = ord[next++];
+            double v = Double.NEGATIVE_INFINITY;
+            int m = 0;
+            for (int k = 0 ; k < na ; k++)
+            {
+                int p = active[k];
+                if (uppers[p] < t)
+                    continue;
+                active[m++] = p;
+                double bp = Double.POSITIVE_INFINITY;
+                for (int l = first[p] ; l < first[p+1] ; l++) bp = Math.min(bp, lb[l] - ls[l]*t);
+                v = Math.max(v, bp);
+            }
+            na = m;
+            h.addConstraintInTime(t, v);
+        }
+    }
+    
+    /* add a constraint a.x + s.t <= b of the current polyhedron, with the direction in the n first coordinates of idx and val, scaled by a factor */
+    private void addConstraint(int n, double factor, double s, double b)
+    {
+        if (n == 0)
+        {
+            /* constraint on time alone, NB : 0.0 is added so that the time 0 is never -0.0 */
+            if (s > 0)
+                upper = Math.min(upper, b/s + 0.0);
+            else if (s < 0)
+                lower = Math.max(lower, b/s + 0.0);
+            return;
+        }
+        if (factor != 1.0)
+            for (int k = 0 ; k < n ; k++) val[k] *= factor;
+        int j = intern(n);
+        if (factor != 1.0)
+            for (int k = 0 ; k < n ; k++) val[k] *= factor;
+        if (constraints == constraintDirections.length)
+        {
+            constraintDirections = Arrays.copyOf(constraintDirections, 2*constraints);
+            constraintSlopes = Arrays.copyOf(constraintSlopes, 2*constraints);
+            constraintBounds = Arrays.copyOf(constraintBounds, 2*constraints);
+        }
+        constraintDirections[constraints] = j;
+        constraintSlopes[constraints] = s;
+        constraintBounds[constraints++] = b;
+    }
+    
+    /* the index of the direction in the n first coordinates of idx and val, which is added to the table if it is new */
+    private int intern(int n)
+    {
+        int h = 0;
+        for (int k = 0 ; k < n ; k++)
+        {
+            long bits = Double.doubleToLongBits(val[k]);
+            h = 31*(31*h + idx[k]) + (int) (bits ^ (bits >>> 32));
+        }
+        if (2*(directions+1) > table.length)
+            rehash();
+        int mask = table.length - 1;
+        int s = (h ^ (h >>> 16)) & mask;
+        while (table[s] != 0)
+        {
+            int j = table[s] - 1;
+            if (hashes[j] == h && isDirection(j, n))
+                return j;
+            s = (s + 1) & mask;
+        }
+        if (directions == directionIndices.length)
+        {
+            directionIndices = Arrays.copyOf(directionIndices, 2*directions);
+            directionValues = Arrays.copyOf(directionValues, 2*directions);
+            hashes = Arrays.copyOf(hashes, 2*directions);
+            present = Arrays.copyOf(present, 2*directions);
+            seen = Arrays.copyOf(seen, 2*directions);
+            lines = Arrays.copyOf(lines, 2*directions);
+            linePolyhedra = Arrays.copyOf(linePolyhedra, 2*directions);
+            lineSlopes = Arrays.copyOf(lineSlopes, 2*directions);
+            lineBounds = Arrays.copyOf(lineBounds, 2*directions);
+        }
+        int j = directions++;
+        directionIndices[j] = Arrays.copyOf(idx, n);
+        directionValues[j] = Arrays.copyOf(val, n);
+        hashes[j] = h;
+        linePolyhedra[j] = new int[0];
+        lineSlopes[j] = new double[0];
+        lineBounds[j] = new double[0];
+        table[s] = j+1;
+        return j;
+    }
+    
+    private boolean isDirection(int j, int n)
+    {
+        int[] di = directionIndices[j];
+        double[] dv = directionValues[j];
+        if (di.length != n)
+            return false;
+        for (int k = 0 ; k < n ; k++)
+            if (di[k] != idx[k] || dv[k] != val[k])
+                return false;
+        return true;
+    }
+    
+    private void rehash()
+    {
+        table = new int[2*table.length];
+        int mask = table.length - 1;
+        for (int j = 0 ; j < directions ; j++)
+        {
+            int h = hashes[j];
+            int s = (h ^ (h >>> 16)) & mask;
+            while (table[s] != 0) s = (s + 1) & mask;
+            table[s] = j+1;
+        }
+    }
+    
+    /* the indices of the polyhedra, ordered by time interval */
+    private int[] order()
+    {
+        if (order != null)
+            return order;
+        boolean sorted = true;
+        for (int k = 1 ; k < polyhedra && sorted ; k++)
+            sorted = lowers[k-1] < lowers[k] || (lowers[k-1] == lowers[k] && uppers[k-1] <= uppers[k]);
+        Integer[] ord = new Integer[polyhedra];
+        for (int k = 0 ; k < polyhedra ; k++) ord[k] = k;
+        if (!sorted)
+        {
+            Arrays.sort(ord, new Comparator <Integer>()
+                {
+                    public int compare(Integer a, Integer b)
+                    {
+                        int c = Double.compare(lowers[a], lowers[b]);
+                        return c != 0 ? c : Double.compare(uppers[a], uppers[b]);
+                    }
+                });
+        }
+        order = new int[polyhedra];
+        for (int k = 0 ; k < polyhedra ; k++) order[k] = ord[k];
+        return order;
+    }
+    
+    static final int LESS = 0;
+    static final int GREATER = 1;
+    static final int EQUAL = 2;
+    /* the current constraint */
+    private final double[] coefficients;
+    private final int[] touched;
+    private final boolean[] isTouched;
+    private int nTouched = 0;
+    private double time = 0.0;
+    private double constant = 0.0;
+    private final int[] idx;
+    private final double[] val;
+    /* the current polyhedron */
+    private double lower;
+    private double upper;
+    private int constraints = 0;
+    private int[] constraintDirections = new int[16];
+    private double[] constraintSlopes = new double[16];
+    private double[] constraintBounds = new double[16];
+    /* the polyhedra */
+    private int polyhedra = 0;
+    private double[] lowers = new double[16];
+    private double[] uppers = new double[16];
+    private int[] order;
+    /* the directions */
+    private int directions = 0;
+    private int[] table = new int[16];
+    private int[] hashes = new int[16];
+    private int[][] directionIndices = new int[16][];
+    private double[][] directionValues = new double[16][];
+    private int[] present = new int[16];
+    private int[] seen = new int[16];
+    /* the lines b - s.t of each direction, with their polyhedron */
+    private int[] lines = new int[16];
+    private int[][] linePolyhedra = new int[16][];
+    private double[][] lineSlopes = new double[16][];
+    private double[][] lineBounds = new double[16][];
+}
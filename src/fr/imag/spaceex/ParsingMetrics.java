@@ -0,0 +1,124 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+/** The figures of the parsing of an output: its size, the time spent in the reading and in the parsing, and the size of the result.
+ **/
+
+public final class ParsingMetrics
+{
+    /* Create the figures of a parsing */
+    ParsingMetrics(String source, long bytesRead, long readTime, long parseTime, int flowpipes, int hyperplanes, long breakpoints)
+    {
+        this.source = source;
+        this.bytesRead = bytesRead;
+        this.readTime = readTime;
+        this.parseTime = parseTime;
+        this.flowpipes = flowpipes;
+        this.hyperplanes = hyperplanes;
+        this.breakpoints = breakpoints;
+    }
+    
+    /** Give the parsed file.
+     ** @return the file name, or null if the output has not been read from a file.
+     **/
+    public String getSource()
+    {
+        return source;
+    }
+    
+    /** Give the size of the output.
+     ** NB : the outputs are ASCII, so it is also the number of characters read.
+     ** @return the number of bytes.
+     **/
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+    
+    /** Give the time spent waiting for the input (file, pipe, ...), which is part of the parsing time.
+     ** For a parallel parsing, it is summed over the tasks, the mapped file being read in memory.
+     ** @return the time, in nanoseconds.
+     **/
+    public long getReadTime()
+    {
+        return readTime;
+    }
+    
+    /** Give the whole time of the parsing, reading included.
+     ** @return the time, in nanoseconds.
+     **/
+    public long getParseTime()
+    {
+        return parseTime;
+    }
+    
+    /** Give the throughput of the parsing.
+     ** @return the number of bytes parsed by second.
+     **/
+    public double getThroughput()
+    {
+        return parseTime == 0 ? 0 : bytesRead*1e9/parseTime;
+    }
+    
+    /** Give the number of parsed flowpipes.
+     ** @return the number of flowpipes.
+     **/
+    public int getFlowpipes()
+    {
+        return flowpipes;
+    }
+    
+    /** Give the number of parsed hyperplanes, over all the flowpipes (the dropped ones of a projection are not counted).
+     ** @return the number of hyperplanes.
+     **/
+    public int getHyperplanes()
+    {
+        return hyperplanes;
+    }
+    
+    /** Give the number of parsed breakpoints (constraints in time), over all the hyperplanes.
+     ** @return the number of breakpoints.
+     **/
+    public long getBreakpoints()
+    {
+        return breakpoints;
+    }
+    
+    /** Give a textual description of the figures.
+     ** @return the textual description.
+     **/
+    @Override
+    public String toString()
+    {
+        return "parsing" + (source == null ? "" : " of " + source) + ": " + bytesRead + " bytes in " + parseTime/1e6 + " ms (read: " + readTime/1e6
+            + " ms), " + flowpipes + " flowpipes, " + hyperplanes + " hyperplanes, " + breakpoints + " breakpoints";
+    }
+    
+    private final String source;
+    private final long bytesRead;
+    private final long readTime;
+    private final long parseTime;
+    private final int flowpipes;
+    private final int hyperplanes;
+    private final long breakpoints;
+}
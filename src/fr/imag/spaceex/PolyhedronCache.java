@@ -0,0 +1,160 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.imag.ppplib.*;
+
+/** A bounded cache of the polyhedra of flowpipes, keyed by flowpipe (identity) and time step, which evicts the least recently used ones.
+ ** A polyhedron is built again when its flowpipe has been modified since it was cached (a hyperplane or a constraint in time has been added).
+ ** It can be used concurrently, and shared by several flowpipes (see Flowpipe.polyhedralRepresentation(PolyhedronCache)).
+ ** NB : the cached polyhedra are shared, so they must not be modified.
+ **/
+
+public class PolyhedronCache
+{
+    /** Create a cache.
+     ** @param capacity the maximum number of polyhedra in the cache.
+     ** @exception FlowpipeException thrown if the capacity is not positive.
+     **/
+    public PolyhedronCache(final int capacity)
+    {
+        if (capacity <= 0)
+            throw new FlowpipeException(caMessage);
+        this.entries = new LinkedHashMap <Key, CachedPolyhedron>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry <Key, CachedPolyhedron> eldest)
+            {
+                if (size() <= capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+    
+    /** Give the number of polyhedra which have been found in the cache.
+     ** @return the number of hits.
+     **/
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+    
+    /** Give the number of polyhedra which have not been found in the cache (or only for a previous version of their flowpipe).
+     ** @return the number of misses.
+     **/
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+    
+    /** Give the number of polyhedra which have been evicted to respect the capacity.
+     ** @return the number of evictions.
+     **/
+    public synchronized long getEvictionCount()
+    {
+        return evictions;
+    }
+    
+    /** Give the number of polyhedra in the cache.
+     ** @return the number of polyhedra.
+     **/
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+    
+    /** Remove all the polyhedra from the cache (the statistics are kept).
+     **/
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+    
+    /* the cached polyhedron of a time step, if it has been built for the given version (stamp) of the flowpipe */
+    synchronized ConvexPolyhedronSupportFunction get(Flowpipe fp, int i, long stamp)
+    {
+        CachedPolyhedron e = entries.get(new Key(fp, i));
+        if (e == null || e.stamp != stamp)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.p;
+    }
+    
+    synchronized void put(Flowpipe fp, int i, long stamp, ConvexPolyhedronSupportFunction p)
+    {
+        entries.put(new Key(fp, i), new CachedPolyhedron(stamp, p));
+    }
+    
+    /* A flowpipe (compared by identity) and the index of a time step */
+    private static final class Key
+    {
+        Key(Flowpipe fp, int i)
+        {
+            this.fp = fp;
+            this.i = i;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return fp == k.fp && i == k.i;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return 31*System.identityHashCode(fp) + i;
+        }
+        
+        private final Flowpipe fp;
+        private final int i;
+    }
+    
+    private static final class CachedPolyhedron
+    {
+        CachedPolyhedron(long stamp, ConvexPolyhedronSupportFunction p)
+        {
+            this.stamp = stamp;
+            this.p = p;
+        }
+        
+        private final long stamp;
+        private final ConvexPolyhedronSupportFunction p;
+    }
+    
+    private final LinkedHashMap <Key, CachedPolyhedron> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private static final String caMessage = "The capacity of the cache must be positive.";
+}
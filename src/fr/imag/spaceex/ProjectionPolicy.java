@@ -0,0 +1,34 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+/** The ways to handle, when a SpaceEx output is projected onto some of its variables while it is parsed,
+ ** the directions which involve both selected and other variables.
+ ** NB : the directions which only involve other variables are always dropped, as they don't constrain the projection.
+ **/
+
+public enum ProjectionPolicy
+{
+    /** The directions are dropped: the projected flowpipes are still an over-approximation of the projection of the flowpipes. **/
+    DROP,
+    /** The parsing fails with a SpaceExOutputParserException. **/
+    FAIL
+}
@@ -0,0 +1,175 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/** A factory of storages of breakpoints in a memory-mapped scratch file, so that the flowpipes can be larger than the heap and the memory.
+ ** The buffers of all its storages are carved out of large mapped regions of one temporary file, which only grows.
+ ** Their capacities are rounded up to powers of two, and the buffers which a storage gives back when it grows or sorts its breakpoints
+ ** are reused by the next allocations of the same capacity, so that the file only grows with the breakpoints which are kept.
+ ** The file is deleted when the factory is closed, after which its storages must not be used any more. It can be used concurrently.
+ **/
+
+public class ScratchFileStorageFactory implements BreakpointStorageFactory, Closeable
+{
+    /** Create a factory with a new scratch file in the default temporary directory.
+     ** @exception FlowpipeException thrown if the scratch file cannot be created.
+     **/
+    public ScratchFileStorageFactory()
+    {
+        this(null);
+    }
+    
+    /** Create a factory with a new scratch file in the given directory.
+     ** @param dir the directory, or null for the default temporary directory.
+     ** @exception FlowpipeException thrown if the scratch file cannot be created.
+     **/
+    public ScratchFileStorageFactory(File dir)
+    {
+        try
+        {
+            file = File.createTempFile("flowpipe", ".scratch", dir);
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+        }
+        catch (IOException e)
+        {
+            throw new FlowpipeException(e.getMessage());
+        }
+    }
+    
+    public BreakpointStorage newStorage()
+    {
+        return new OffHeapBreakpointStorage(new OffHeapBreakpointStorage.Allocator()
+            {
+                public DoubleBuffer allocate(int n)
+                {
+                    return ScratchFileStorageFactory.this.allocate(n);
+                }
+                
+                public void release(DoubleBuffer b)
+                {
+                    ScratchFileStorageFactory.this.release(b);
+                }
+            });
+    }
+    
+    /** Delete the scratch file.
+     **/
+    public synchronized void close()
+    {
+        try
+        {
+            channel.close();
+            raf.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        region = null;
+        released.clear();
+        file.delete();
+    }
+    
+    /* the used size of the scratch file, in bytes, i.e. without the end of the current region */
+    synchronized long usedSize()
+    {
+        return region == null ? end : end - 8L*region.remaining();
+    }
+    
+    /* a buffer of n doubles, whose capacity is rounded up: a released one, or one from the current region, or in its own region if it is large */
+    private synchronized DoubleBuffer allocate(int n)
+    {
+        int cap = Math.max(8, n);
+        if (Integer.bitCount(cap) != 1 && cap <= MAX_POWER)
+            cap = Integer.highestOneBit(cap) << 1;
+        DoubleBuffer res;
+        ArrayDeque <DoubleBuffer> free = released.get(cap);
+        if (free != null && !free.isEmpty())
+            res = free.pop();
+        else
+        {
+            try
+            {
+                if (cap > REGION_SIZE/4)
+                    res = map(cap);
+                else
+                {
+                    if (region == null || region.remaining() < cap)
+                        region = map(REGION_SIZE);
+                    res = region.slice();
+                    res.limit(cap);
+                    res = res.slice();
+                    region.position(region.position() + cap);
+                }
+            }
+            catch (IOException e)
+            {
+                throw new FlowpipeException(e.getMessage());
+            }
+        }
+        res.limit(n);
+        return res;
+    }
+    
+    /* keep a buffer which is not used any more for the next allocations of its capacity */
+    private synchronized void release(DoubleBuffer b)
+    {
+        ArrayDeque <DoubleBuffer> free = released.get(b.capacity());
+        if (free == null)
+        {
+            free = new ArrayDeque <DoubleBuffer>();
+            released.put(b.capacity(), free);
+        }
+        b.clear();
+        free.push(b);
+    }
+    
+    private DoubleBuffer map(int n) throws IOException
+    {
+        MappedByteBuffer mb = channel.map(FileChannel.MapMode.READ_WRITE, end, 8L*n);
+        end += 8L*n;
+        return mb.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+    
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private long end = 0;
+    private DoubleBuffer region;
+    private final Map <Integer, ArrayDeque <DoubleBuffer>> released = new HashMap <Integer, ArrayDeque <DoubleBuffer>>();
+    private static final int REGION_SIZE = 1 << 23;
+    private static final int MAX_POWER = 1 << 27;
+}
@@ -0,0 +1,40 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+/** A listener which is told about each file of a batch as soon as it has been parsed.
+ ** NB : the listener is called by the threads which parse the files.
+ **/
+
+public interface SpaceExBatchListener
+{
+    /** Called when a file has been parsed.
+     ** @param fileName the file name.
+     ** @param parser the parsed output.
+     **/
+    void parsed(String fileName, SpaceExOutputParser parser);
+    
+    /** Called when a file could not be parsed.
+     ** @param fileName the file name.
+     ** @param e the reason.
+     **/
+    void failed(String fileName, SpaceExOutputParserException e);
+}
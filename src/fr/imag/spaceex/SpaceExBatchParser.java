@@ -0,0 +1,150 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** A class which parses many SpaceEx txt output files concurrently, each one in a task of a bounded executor.
+ ** The results are given back file by file, as soon as they are parsed, and a failure only concerns its file.
+ ** The files over the same variables share one variable map, and their identical directions.
+ **/
+
+public class SpaceExBatchParser
+{
+    /** Create a batch parser, with its own pool of as many threads as available processors.
+     **/
+    public SpaceExBatchParser()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /** Create a batch parser, with its own pool of threads.
+     ** @param threads the number of threads, i.e. the number of files parsed at the same time.
+     **/
+    public SpaceExBatchParser(int threads)
+    {
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.ownExecutor = true;
+    }
+    
+    /** Create a batch parser, whose files are parsed in tasks of the given executor.
+     ** @param executor the executor, which should be bounded.
+     **/
+    public SpaceExBatchParser(ExecutorService executor)
+    {
+        this.executor = executor;
+        this.ownExecutor = false;
+    }
+    
+    /** Parse the given files concurrently.
+     ** @param fileNames the file names.
+     ** @return one future per file, in the order of the file names, which completes with the parsed output,
+     ** or exceptionally with a SpaceExOutputParserException (or any unexpected exception).
+     **/
+    public List <CompletableFuture <SpaceExOutputParser>> parseAll(Collection <String> fileNames)
+    {
+        return parseAll(fileNames, null);
+    }
+    
+    /** Parse the given files concurrently, telling a listener about each file as soon as it is parsed.
+     ** @param fileNames the file names.
+     ** @param listener the listener, or null. It is called once the future of the file is complete, and its exceptions are only printed.
+     ** @return one future per file, in the order of the file names, which completes with the parsed output,
+     ** or exceptionally with a SpaceExOutputParserException (or any unexpected exception).
+     **/
+    public List <CompletableFuture <SpaceExOutputParser>> parseAll(Collection <String> fileNames, final SpaceExBatchListener listener)
+    {
+        List <CompletableFuture <SpaceExOutputParser>> res = new ArrayList <CompletableFuture <SpaceExOutputParser>>(fileNames.size());
+        for (final String fileName : fileNames)
+        {
+            final CompletableFuture <SpaceExOutputParser> f = new CompletableFuture <SpaceExOutputParser>();
+            executor.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        /* the future is completed whatever happens, before the listener is called */
+                        SpaceExOutputParser p;
+                        try
+                        {
+                            p = new SpaceExOutputParser(fileName);
+                            p.internDomain(domains);
+                        }
+                        catch (Throwable e)
+                        {
+                            f.completeExceptionally(e);
+                            if (e instanceof SpaceExOutputParserException)
+                                notifyFailed(listener, fileName, (SpaceExOutputParserException) e);
+                            else if (e instanceof Error)
+                                throw (Error) e;
+                            return;
+                        }
+                        f.complete(p);
+                        notifyParsed(listener, fileName, p);
+                    }
+                });
+            res.add(f);
+        }
+        return res;
+    }
+    
+    /** Stop the threads of the batch parser, once the submitted files are parsed, if it has its own pool.
+     **/
+    public void shutdown()
+    {
+        if (ownExecutor)
+            executor.shutdown();
+    }
+    
+    private static void notifyParsed(SpaceExBatchListener listener, String fileName, SpaceExOutputParser p)
+    {
+        try
+        {
+            if (listener != null)
+                listener.parsed(fileName, p);
+        }
+        catch (RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    private static void notifyFailed(SpaceExBatchListener listener, String fileName, SpaceExOutputParserException ex)
+    {
+        try
+        {
+            if (listener != null)
+                listener.failed(fileName, ex);
+        }
+        catch (RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final DomainPool domains = new DomainPool();
+}
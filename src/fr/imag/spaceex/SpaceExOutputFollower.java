@@ -0,0 +1,99 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+package fr.imag.spaceex;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+
+/** A class which parses a SpaceEx txt output while SpaceEx is still writing it (a growing file or a named pipe).
+ ** Each flowpipe is given to a listener as soon as its separator has been written, long before the end of the analysis.
+ ** The output is supposed to be complete when the file has not grown for a given time, or when the follower is stopped.
+ **/
+
+public class SpaceExOutputFollower
+{
+    /** Create a follower of the given txt SpaceEx output file, which is supposed to be complete when it has not grown for the given time.
+     ** @param fileName the file name.
+     ** @param idleTimeout the time without new data after which the file is complete, in milliseconds, or 0 to follow it until stop is called.
+     ** @param listener the listener of the flowpipes.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found.
+     **/
+    public SpaceExOutputFollower(String fileName, long idleTimeout, FlowpipeListener listener)
+    {
+        try
+        {
+            this.in = new FollowingInputStream(new FileInputStream(fileName), POLL_INTERVAL, idleTimeout);
+        }
+        catch(FileNotFoundException e)
+        {
+            throw new SpaceExOutputParserException(e.getMessage());
+        }
+        this.listener = listener;
+    }
+    
+    /** Follow the file until it is complete, giving each flowpipe to the listener as soon as it has been parsed.
+     ** This call blocks the current thread.
+     ** @return the whole parsed output.
+     ** @exception SpaceExOutputParserException thrown if the file is corrupted, or if the following has been interrupted.
+     **/
+    public SpaceExOutputParser follow()
+    {
+        SpaceExOutputParser res = new SpaceExOutputParser();
+        try
+        {
+            res.parse(new SpaceExOutputLexer(new InputStreamReader(in)), listener);
+        }
+        catch(InterruptedIOException e)
+        {
+            throw new SpaceExOutputParserException(SpaceExOutputParser.inMessage);
+        }
+        catch(IOException e)
+        {
+            throw new SpaceExOutputParserException(SpaceExOutputParser.cfMessage);
+        }
+        finally
+        {
+            try
+            {
+                in.close();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+        return res;
+    }
+    
+    /** Stop following the file (e.g. from another thread): the output is then supposed to end with the data already written.
+     **/
+    public void stop()
+    {
+        in.stop();
+    }
+    
+    private final FollowingInputStream in;
+    private final FlowpipeListener listener;
+    private static final long POLL_INTERVAL = 50;
+}
@@ -0,0 +1,370 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** A single-pass lexer over a SpaceEx txt output, which reads its input by chunks.
+ ** Line terminators are dropped, as if all the lines were concatenated, and numbers are parsed in place.
+ **/
+
+class SpaceExOutputLexer
+{
+    /** Create a new lexer.
+     ** @param in the input to read.
+     **/
+    SpaceExOutputLexer(Reader in)
+    {
+        this.in = in;
+    }
+
+    /** Give the current character without consuming it.
+     ** @return the character, or -1 at the end of the input.
+     **/
+    int peek() throws IOException
+    {
+        if (pos == lim && !fill(1))
+            return -1;
+        return buf[pos];
+    }
+
+    /** Give the character at a given distance of the current position, without consuming anything.
+     ** @param k the distance.
+     ** @return the character, or -1 if the input ends before.
+     **/
+    int peek(int k) throws IOException
+    {
+        if (lim - pos <= k && !fill(k+1))
+            return -1;
+        return buf[pos+k];
+    }
+
+    /** Consume the current character.
+     ** @return the character, or -1 at the end of the input.
+     **/
+    int read() throws IOException
+    {
+        int c = peek();
+        if (c >= 0)
+            pos++;
+        return c;
+    }
+
+    /** Tell whether the current position is the end of a flowpipe (a separator or the end of the input).
+     ** @return true if it is.
+     **/
+    boolean atBoundary() throws IOException
+    {
+        int c = peek();
+        return c < 0 || c == '|';
+    }
+
+    /** Tell whether the input continues with the given keyword.
+     ** @param keyword the keyword.
+     ** @return true if it does.
+     **/
+    boolean lookingAt(String keyword) throws IOException
+    {
+        int n = keyword.length();
+        if (lim - pos < n && !fill(n))
+            return false;
+        for (int i = 0 ; i < n ; i++)
+            if (buf[pos+i] != keyword.charAt(i))
+                return false;
+        return true;
+    }
+
+    /** Skip the white spaces. **/
+    void skipSpaces() throws IOException
+    {
+        int c;
+        while ((c = peek()) >= 0 && isSpace(c)) pos++;
+    }
+
+    /** Skip everything until a given keyword, which is consumed.
+     ** The scan stops without consuming anything on a direction, a flowpipe separator or the end of the input.
+     ** @param keyword the keyword.
+     ** @return FOUND, DIRECTION, SEPARATOR or END.
+     **/
+    int skipTo(String keyword) throws IOException
+    {
+        return scan(keyword, false);
+    }
+
+    /** Skip everything until a number, which is not consumed, or a given keyword, which is consumed.
+     ** The scan stops without consuming anything on a direction, a flowpipe separator or the end of the input.
+     ** @param keyword the keyword.
+     ** @return NUMBER, FOUND, DIRECTION, SEPARATOR or END.
+     **/
+    int skipToNumber(String keyword) throws IOException
+    {
+        return scan(keyword, true);
+    }
+
+    /** Tell whether a number starts at the current position.
+     ** @return true if it does.
+     **/
+    boolean atNumber() throws IOException
+    {
+        int c = peek();
+        return isDigit(c) || (c == '-' && isDigit(peek(1)));
+    }
+
+    /** Read the number which starts at the current position.
+     ** Numbers are written -?d+(.d+)?(e-?d+)?, the exponent possibly being introduced by E or signed by +.
+     ** @return the value of the number.
+     **/
+    double readNumber() throws IOException
+    {
+        numb.setLength(0);
+        boolean negative = peek() == '-';
+        if (negative)
+        {
+            numb.append('-');
+            pos++;
+        }
+        /* mantissa, exactly known while it has at most 15 significant digits */
+        long mant = 0;
+        int signif = 0;
+        int scale = 0;
+        int c;
+        while (isDigit(c = peek()))
+        {
+            numb.append((char) c);
+            pos++;
+            if (mant != 0 || c != '0')
+            {
+                mant = 10*mant + (c - '0');
+                signif++;
+            }
+        }
+        if (c == '.' && isDigit(peek(1)))
+        {
+            numb.append('.');
+            pos++;
+            while (isDigit(c = peek()))
+            {
+                numb.append((char) c);
+                pos++;
+                scale--;
+                if (mant != 0 || c != '0')
+                {
+                    mant = 10*mant + (c - '0');
+                    signif++;
+                }
+            }
+        }
+        /* exponent */
+        int exp = 0;
+        if (c == 'e' || c == 'E')
+        {
+            int c1 = peek(1);
+            int first = (c1 == '-' || c1 == '+') ? 2 : 1;
+            if (isDigit(peek(first)))
+            {
+                for (int i = 0 ; i < first ; i++) numb.append(buf[pos++]);
+                while (isDigit(c = peek()))
+                {
+                    numb.append((char) c);
+                    pos++;
+                    if (exp < 10000)
+                        exp = 10*exp + (c - '0');
+                }
+                if (c1 == '-')
+                    exp = -exp;
+            }
+        }
+        /* both the mantissa and the power of ten are exact doubles: the result is correctly rounded */
+        if (signif <= 15)
+        {
+            if (mant == 0)
+                return negative ? -0.0 : 0.0;
+            int e = exp + scale;
+            if (e >= 0 && e < POW10.length)
+                return negative ? -(mant*POW10[e]) : mant*POW10[e];
+            if (e < 0 && -e < POW10.length)
+                return negative ? -(mant/POW10[-e]) : mant/POW10[-e];
+        }
+        return Double.parseDouble(numb.toString());
+    }
+
+    /** Append the name which starts at the current position to a builder.
+     ** A name is made of letters, digits, underscores and dots.
+     ** @param sb the builder.
+     **/
+    void readName(StringBuilder sb) throws IOException
+    {
+        int c;
+        while (isNameChar(c = peek()))
+        {
+            sb.append((char) c);
+            pos++;
+        }
+    }
+
+    /** Read a key, up to the next '=' which is consumed: the white spaces around the key are ignored.
+     ** @return the key, which is only valid until the next call, or null if a ',', a ']' or a boundary comes first.
+     **/
+    CharSequence readKey() throws IOException
+    {
+        skipSpaces();
+        key.setLength(0);
+        int c;
+        while ((c = read()) != '=')
+        {
+            if (c < 0 || c == ',' || c == ']' || c == '|')
+                return null;
+            key.append((char) c);
+        }
+        int l = key.length();
+        while (l > 0 && key.charAt(l-1) <= ' ') l--;
+        key.setLength(l);
+        return key;
+    }
+
+    /** Measure the time spent waiting for the input, from now on. **/
+    void measure()
+    {
+        measured = true;
+    }
+    
+    /** Give the number of characters read from the input, line terminators included.
+     ** @return the number of characters.
+     **/
+    long getCharactersRead()
+    {
+        return charactersRead;
+    }
+    
+    /** Give the time spent waiting for the input since measure has been called.
+     ** @return the time, in nanoseconds.
+     **/
+    long getReadTime()
+    {
+        return readTime;
+    }
+    
+    private int scan(String keyword, boolean numbers) throws IOException
+    {
+        char k0 = keyword.charAt(0);
+        while (true)
+        {
+            if (pos == lim && !fill(1))
+                return END;
+            /* fast scan of the buffered characters */
+            int i = pos;
+            int l = lim;
+            char[] b = buf;
+            char c = 0;
+            while (i < l)
+            {
+                c = b[i];
+                if (c == k0 || c == 'd' || c == '|' || (numbers && (c == '-' || (c >= '0' && c <= '9'))))
+                    break;
+                i++;
+            }
+            pos = i;
+            if (i == l)
+                continue;
+            if (c == k0 && lookingAt(keyword))
+            {
+                pos += keyword.length();
+                return FOUND;
+            }
+            if (c == '|')
+                return SEPARATOR;
+            if (c == 'd' && lookingAt(DIRECTION_KEYWORD))
+                return DIRECTION;
+            if (numbers && atNumber())
+                return NUMBER;
+            pos++;
+        }
+    }
+
+    private boolean fill(int n) throws IOException
+    {
+        if (pos > 0)
+        {
+            System.arraycopy(buf, pos, buf, 0, lim - pos);
+            lim -= pos;
+            pos = 0;
+        }
+        while (lim < n && !eof)
+        {
+            long start = measured ? System.nanoTime() : 0;
+            int r = in.read(buf, lim, buf.length - lim);
+            if (measured)
+                readTime += System.nanoTime() - start;
+            if (r < 0)
+            {
+                eof = true;
+                break;
+            }
+            charactersRead += r;
+            /* line terminators are dropped */
+            int j = lim;
+            for (int i = lim ; i < lim + r ; i++)
+            {
+                char c = buf[i];
+                if (c != '\n' && c != '\r')
+                    buf[j++] = c;
+            }
+            lim = j;
+        }
+        return lim >= n;
+    }
+
+    private static boolean isDigit(int c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isSpace(int c)
+    {
+        return c == ' ' || c == '\t' || c == '\u000B' || c == '\f';
+    }
+
+    static boolean isNameChar(int c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_' || c == '.';
+    }
+
+    static final int FOUND = 0;
+    static final int NUMBER = 1;
+    static final int DIRECTION = 2;
+    static final int SEPARATOR = 3;
+    static final int END = 4;
+    static final String DIRECTION_KEYWORD = "direction";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int lim = 0;
+    private boolean eof = false;
+    private boolean measured = false;
+    private long charactersRead = 0;
+    private long readTime = 0;
+    private final StringBuilder numb = new StringBuilder();
+    private final StringBuilder key = new StringBuilder();
+}
@@ -21,22 +21,41 @@
 
 package fr.imag.spaceex;
 
-import fr.imag.ppplib.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.io.IOException;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 /** A class which provides a tool to parse a SpaceEx txt flowpipe into a list of SupportFunction.
+ ** The flowpipes are given either by their support functions in time (direction: [x=1, y=0] plif: ...),
+ ** or as sequences of polyhedra given by their outer constraints (outer constraints: x + 2*y <= 3 & t >= 0 & t <= 0.1 ...).
+ ** Each polyhedron must bound the time t (which must not be a variable of the domain) on both sides, and the polyhedra may overlap in time.
+ ** NB : only the directions which are bounded in all the polyhedra of a flowpipe are kept.
  **/
 
 public class SpaceExOutputParser
@@ -46,104 +65,372 @@ public class SpaceExOutputParser
      **/
     public SpaceExOutputParser(String fileName)
     {
+        this(fileName, (Collection <String>) null, null);
+    }
+    
+    /** Parse the given txt SpaceEx output file as the previous constructor, but build the flowpipes in the space of the selected variables only.
+     ** The selected variables keep the order of the domain of the output, and time stays the last coordinate of the space-time directions.
+     ** The directions which only involve other variables are dropped, and the ones which involve both are handled according to the policy.
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, if the file is corrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(String fileName, Collection <String> variables, ProjectionPolicy policy)
+    {
+        this(fileName, variables, policy, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse the given txt SpaceEx output file as the first constructor, but store the constraints in time in storages of the given factory,
+     ** e.g. off-heap or in a mapped scratch file for the flowpipes which are larger than the heap.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, or if the file is corrupted.
+     **/
+    public SpaceExOutputParser(String fileName, BreakpointStorageFactory storageFactory)
+    {
+        this(fileName, null, null, storageFactory);
+    }
+    
+    /** Parse the given txt SpaceEx output file with both a projection and a factory of storages (see the previous constructors).
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, if the file is corrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(String fileName, Collection <String> variables, ProjectionPolicy policy, BreakpointStorageFactory storageFactory)
+    {
+        this.selected = variables;
+        this.policy = policy;
+        this.storageFactory = storageFactory;
+        this.source = fileName;
+        Reader r = null;
         try
         {
-            File f = new File(fileName);
-            br = new BufferedReader(new FileReader(f));
-            
-            /* File reading and splitting into flowpipes */
-            StringBuffer sb = new StringBuffer((int)(f.length()));
-            String l;
-            while((l = br.readLine()) != null) sb.append(l);
-            String[] fps = pNewFlowpipe.split(sb);
-            
-            /* Variables and dimension reading (in the first flowpipe) */
-            Matcher mVarDom = pVarDomain.matcher(fps[0]);
-            mVarDom.find();
-            mVarDom = pExtractVarDomain.matcher(mVarDom.group());
-            mVarDom.find();
-            String varsString = mVarDom.group();
-            varsString = varsString.substring(1, varsString.length()-1);
-            String[] vars = pComma.split(varsString);
-            d = vars.length;
-            varMap = new HashMap <String, Integer>(d);
-            for (int i = 0 ; i < d ; i++)
-            {
-                Matcher m = pVarName.matcher(vars[i].trim());
-                m.find();
-                varMap.put(m.group(), i);
-            }
-            
-            /* Data reading */
-            for (int i = 0 ; i < fps.length ; i++)
-            {
-                /* 1 flowpipe reading */
-                String[] dirsAndSecondMember = pNewDir.split(fps[i]);
-                /* Flowpipe creation */
-                Flowpipe fp = new Flowpipe();
-                /* NB : The first string is not a direction */
-                for (int j = 1 ; j < dirsAndSecondMember.length ; j++)
-                {
-                    /* Direction extraction */
-                    double[] dir = new double[d];
-                    Matcher mDir = pExtractDir.matcher(dirsAndSecondMember[j]);
-                    mDir.find();
-                    Matcher mDirExtracted = pExtractVarDomain.matcher(mDir.group());
-                    mDirExtracted.find();
-                    String dirExtractedString = mDirExtracted.group();
-                    dirExtractedString = dirExtractedString.substring(1, dirExtractedString.length()-1);
-                    String[] coordString = pComma.split(dirExtractedString);
-                    for (int k = 0 ; k < coordString.length ; k++)
-                    {
-                        String[] varAndCoord = pExtractCoord.split(coordString[k]);
-                        dir[varMap.get(varAndCoord[0])] = Double.parseDouble(varAndCoord[1]);
-                    }
-                    /* Construct the hyperplane in time */
-                    HyperplaneInTime h = new HyperplaneInTime(dir);
-                    /* Constraints in time extraction */
-                    Matcher mSecMemb = pExtractSecMemb.matcher(dirsAndSecondMember[j]);
-                    mSecMemb.find();
-                    Matcher mSecMemb2 = pExtractSecMemb2.matcher(mSecMemb.group());
-                    mSecMemb2.find();
-                    Matcher mSecMembNumb = pExtractNumb.matcher(mSecMemb2.group());
-                    while (mSecMembNumb.find())
-                    {
-                        double t = Double.parseDouble(mSecMembNumb.group());
-                        mSecMembNumb.find();
-                        double s1 = Double.parseDouble(mSecMembNumb.group());
-                        mSecMembNumb.find();
-                        double s2 = Double.parseDouble(mSecMembNumb.group());
-                        mSecMembNumb.find();
-                        double s3 = Double.parseDouble(mSecMembNumb.group());
-                        double b = Math.max(s1,Math.max(s2, s3));
-                        h.addConstraintInTime(t, b);
-                    }
-                    /* Add to the current FlowPipe */
-                    fp.addHyperplane(h);
-                }                
-                /* Add the flowpipe to the result */
-                flowpipesResult.add(fp);
-            }
+            r = new FileReader(fileName);
+            parse(new SpaceExOutputLexer(r), null);
         }
         catch(FileNotFoundException e)
         {
             throw new SpaceExOutputParserException(e.getMessage());
         }
+        catch(SpaceExOutputParserException e)
+        {
+            throw e;
+        }
         catch(Exception e)
         {
             throw new SpaceExOutputParserException(cfMessage);
         }
         finally
         {
-            try
-            {
-                if (br != null)
-                    br.close();
-            }
-            catch (IOException e)
-            {
-                e.printStackTrace();
-            }
+            close(r);
+        }
+    }
+    
+    /** Parse the given txt SpaceEx output file as the previous constructor, but parse the flowpipes in parallel.
+     ** The flowpipe boundaries are found first in the mapped file, then each flowpipe is parsed by a task of the given executor (e.g. a ForkJoinPool).
+     ** The flowpipes keep the order of the file.
+     ** @param executor the executor which parses the flowpipes.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, or if the file is corrupted.
+     **/
+    public SpaceExOutputParser(String fileName, ExecutorService executor)
+    {
+        this(fileName, executor, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse the given txt SpaceEx output file in parallel as the previous constructor, but store the constraints in time in storages of the given factory.
+     ** @param executor the executor which parses the flowpipes.
+     ** @param storageFactory the factory of the storages of the constraints in time, which is used by the tasks concurrently.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, or if the file is corrupted.
+     **/
+    public SpaceExOutputParser(String fileName, ExecutorService executor, BreakpointStorageFactory storageFactory)
+    {
+        this(fileName, null, null, executor, storageFactory);
+    }
+    
+    /** Parse the given txt SpaceEx output file in parallel as the constructor with an executor, but build the flowpipes in the space of the selected variables only,
+     ** as the constructor with a projection.
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @param executor the executor which parses the flowpipes.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, if the file is corrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(String fileName, Collection <String> variables, ProjectionPolicy policy, ExecutorService executor)
+    {
+        this(fileName, variables, policy, executor, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse the given txt SpaceEx output file in parallel with both a projection and a factory of storages (see the previous constructors).
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @param executor the executor which parses the flowpipes.
+     ** @param storageFactory the factory of the storages of the constraints in time, which is used by the tasks concurrently.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, if the file is corrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(String fileName, Collection <String> variables, ProjectionPolicy policy, ExecutorService executor,
+                               BreakpointStorageFactory storageFactory)
+    {
+        this.selected = variables;
+        this.policy = policy;
+        this.storageFactory = storageFactory;
+        this.source = fileName;
+        FileInputStream in = null;
+        try
+        {
+            in = new FileInputStream(fileName);
+            FileChannel fc = in.getChannel();
+            Charset cs = Charset.defaultCharset();
+            /* NB : separators can only be found on bytes for the charsets which are compatible with ASCII */
+            if (fc.size() > Integer.MAX_VALUE || !(cs.name().equals("UTF-8") || cs.newEncoder().maxBytesPerChar() == 1))
+                parse(new SpaceExOutputLexer(new InputStreamReader(in, cs)), null);
+            else
+                parseInParallel(fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()), cs, executor);
+        }
+        catch(FileNotFoundException e)
+        {
+            throw new SpaceExOutputParserException(e.getMessage());
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SpaceExOutputParserException(inMessage);
+        }
+        catch(SpaceExOutputParserException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new SpaceExOutputParserException(cfMessage);
+        }
+        finally
+        {
+            close(in);
+        }
+    }
+    
+    /** Parse a txt SpaceEx output from the given reader, which is read up to its end but not closed.
+     ** @param in the reader.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(Reader in)
+    {
+        this(in, null, null);
+    }
+    
+    /** Parse a txt SpaceEx output from the given reader as the previous constructor, but build the flowpipes in the space of the selected variables only,
+     ** as the constructor from a file with a projection.
+     ** @param in the reader.
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, if the reading has been interrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(Reader in, Collection <String> variables, ProjectionPolicy policy)
+    {
+        this(in, variables, policy, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse a txt SpaceEx output from the given reader as the first constructor from a reader, but store the constraints in time in storages of the given factory.
+     ** @param in the reader.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(Reader in, BreakpointStorageFactory storageFactory)
+    {
+        this(in, null, null, storageFactory);
+    }
+    
+    /** Parse a txt SpaceEx output from the given reader with both a projection and a factory of storages (see the previous constructors).
+     ** @param in the reader.
+     ** @param variables the selected variables, or null to keep all the variables.
+     ** @param policy the policy for the directions which involve both selected and other variables.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, if the reading has been interrupted,
+     ** if a selected variable doesn't exist, or if a direction cannot be projected with the FAIL policy.
+     **/
+    public SpaceExOutputParser(Reader in, Collection <String> variables, ProjectionPolicy policy, BreakpointStorageFactory storageFactory)
+    {
+        this.selected = variables;
+        this.policy = policy;
+        this.storageFactory = storageFactory;
+        try
+        {
+            parse(new SpaceExOutputLexer(in), null);
+        }
+        catch(InterruptedIOException e)
+        {
+            throw new SpaceExOutputParserException(inMessage);
+        }
+        catch(SpaceExOutputParserException e)
+        {
+            throw e;
+        }
+        catch(Exception e)
+        {
+            throw new SpaceExOutputParserException(cfMessage);
+        }
+    }
+    
+    /** Parse a txt SpaceEx output from the given stream (e.g. the standard input, or a socket), which is decoded with the default charset as the files.
+     ** The stream is read up to its end but not closed.
+     ** @param in the stream.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(InputStream in)
+    {
+        this(in, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse a txt SpaceEx output from the given stream as the previous constructor, but store the constraints in time in storages of the given factory.
+     ** @param in the stream.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(InputStream in, BreakpointStorageFactory storageFactory)
+    {
+        this(new InputStreamReader(in), storageFactory);
+    }
+    
+    /** Parse a txt SpaceEx output from the given channel (e.g. a pipe), which is decoded with the default charset as the files.
+     ** The channel is read up to its end but not closed.
+     ** @param ch the channel.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(ReadableByteChannel ch)
+    {
+        this(ch, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Parse a txt SpaceEx output from the given channel as the previous constructor, but store the constraints in time in storages of the given factory.
+     ** @param ch the channel.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @exception SpaceExOutputParserException thrown if the output is corrupted, or if the reading has been interrupted.
+     **/
+    public SpaceExOutputParser(ReadableByteChannel ch, BreakpointStorageFactory storageFactory)
+    {
+        this(Channels.newInputStream(ch), storageFactory);
+    }
+    
+    /* Create a parser to be filled by parse */
+    SpaceExOutputParser()
+    {
+    }
+    
+    /* Create a parser with already parsed flowpipes */
+    SpaceExOutputParser(List <Flowpipe> flowpipes, Map <String, Integer> varMap, int d)
+    {
+        this.flowpipesResult = flowpipes;
+        this.varMap = varMap;
+        this.d = d;
+        this.varTable = new VariableTable(varMap);
+    }
+    
+    /** Parse the given txt SpaceEx output file as the first constructor, through a binary cache written beside the file.
+     ** The cache is used while the size, the modification time and the content (CRC-32) of the file are the same,
+     ** and its breakpoints are read in place from the mapped cache file.
+     ** @param fileName the file name.
+     ** @return the parsed output.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, or if the file is corrupted.
+     **/
+    public static SpaceExOutputParser parseWithCache(String fileName)
+    {
+        return parseWithCache(fileName, null);
+    }
+    
+    /** Parse the given txt SpaceEx output file as the second constructor (in parallel), through a binary cache written beside the file.
+     ** @param fileName the file name.
+     ** @param executor the executor which parses the flowpipes, or null to parse them sequentially.
+     ** @return the parsed output.
+     ** @exception SpaceExOutputParserException thrown if the file has not been found, or if the file is corrupted.
+     **/
+    public static SpaceExOutputParser parseWithCache(String fileName, ExecutorService executor)
+    {
+        FlowpipeCache cache = new FlowpipeCache(new File(fileName));
+        SpaceExOutputParser res = cache.load();
+        if (res == null)
+        {
+            res = executor == null ? new SpaceExOutputParser(fileName) : new SpaceExOutputParser(fileName, executor);
+            cache.store(res);
+        }
+        return res;
+    }
+    
+    /** Launch the given command (e.g. SpaceEx), and parse its standard output while it is written.
+     ** @param command the command and its arguments.
+     ** @return the parsed output.
+     ** @exception SpaceExOutputParserException thrown if the command cannot be launched or fails, or if its output is corrupted.
+     **/
+    public static SpaceExOutputParser parseProcessOutput(String... command)
+    {
+        return parseProcessOutput(new ProcessBuilder(command));
+    }
+    
+    /** Launch a process, and parse its standard output while it is written, without writing it to a file.
+     ** The standard output of the builder is set to a pipe, and its error output, if it is a pipe which would never be read, is inherited.
+     ** The process must end with the exit code 0, and it is destroyed if its output is corrupted.
+     ** If a process which has failed has also written a corrupted output, the exit code is reported, with the parsing error as the cause.
+     ** @param pb the process builder.
+     ** @return the parsed output.
+     ** @exception SpaceExOutputParserException thrown if the process cannot be launched or fails, or if its output is corrupted.
+     **/
+    public static SpaceExOutputParser parseProcessOutput(ProcessBuilder pb)
+    {
+        return parseProcessOutput(pb, BreakpointStorageFactory.HEAP);
+    }
+    
+    /** Launch a process, and parse its standard output as the previous method, but store the constraints in time in storages of the given factory.
+     ** @param pb the process builder.
+     ** @param storageFactory the factory of the storages of the constraints in time.
+     ** @return the parsed output.
+     ** @exception SpaceExOutputParserException thrown if the process cannot be launched or fails, or if its output is corrupted.
+     **/
+    public static SpaceExOutputParser parseProcessOutput(ProcessBuilder pb, BreakpointStorageFactory storageFactory)
+    {
+        pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        if (!pb.redirectErrorStream() && pb.redirectError().equals(ProcessBuilder.Redirect.PIPE))
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process p;
+        try
+        {
+            p = pb.start();
+        }
+        catch(IOException e)
+        {
+            throw new SpaceExOutputParserException(e.getMessage());
+        }
+        boolean done = false;
+        try
+        {
+            close(p.getOutputStream());
+            SpaceExOutputParser res = new SpaceExOutputParser(p.getInputStream(), storageFactory);
+            int code = p.waitFor();
+            if (code != 0)
+                throw new SpaceExOutputParserException(exMessage + code);
+            done = true;
+            return res;
+        }
+        catch(SpaceExOutputParserException e)
+        {
+            /* the output of a failed process is often empty or partial: its exit code is reported first, the parsing error being the cause */
+            int code = exitCode(p);
+            if (code != 0)
+                throw new SpaceExOutputParserException(exMessage + code, e);
+            throw e;
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SpaceExOutputParserException(inMessage);
+        }
+        finally
+        {
+            if (!done)
+                destroy(p);
+            close(p.getInputStream());
         }
     }
     
@@ -188,30 +475,535 @@ public class SpaceExOutputParser
         return res;
     }
     
-    private BufferedReader br;
+    /* the map from the variable names to their index */
+    Map <String, Integer> getVariableMap()
+    {
+        return varMap;
+    }
+    
+    /* share the variable map and the directions with the other outputs over the same variables */
+    void internDomain(DomainPool pool)
+    {
+        DomainPool.Domain dom = pool.intern(varMap, d);
+        varMap = dom.varMap;
+        varTable = dom.varTable;
+        for (Flowpipe fp : flowpipesResult)
+            for (HyperplaneInTime h : fp.getHyperplanes()) h.internDirection(dom.directions);
+    }
+    
+    /* Parse a whole output: the flowpipes are separated by '|', and the variables are declared in the first one.
+       Each flowpipe is given to the listener, if any, as soon as it is complete */
+    void parse(SpaceExOutputLexer lx, FlowpipeListener listener) throws IOException
+    {
+        MetricsListener ml = Metrics.listener;
+        long start = 0;
+        if (ml != null)
+        {
+            lx.measure();
+            start = System.nanoTime();
+        }
+        readVariables(lx);
+        /* NB : as when splitting on the separators, the trailing empty flowpipes are ignored */
+        boolean first = true;
+        int pendingEmpty = 0;
+        while (true)
+        {
+            boolean empty = !first && lx.atBoundary();
+            Flowpipe fp = readFlowpipe(lx);
+            if (empty)
+                pendingEmpty++;
+            else
+            {
+                for ( ; pendingEmpty > 0 ; pendingEmpty--) addFlowpipe(new Flowpipe(), listener);
+                addFlowpipe(fp, listener);
+            }
+            if (lx.read() < 0)
+                break;
+            first = false;
+        }
+        if (ml != null)
+            report(ml, lx.getCharactersRead(), lx.getReadTime(), System.nanoTime() - start);
+    }
+    
+    private void addFlowpipe(Flowpipe fp, FlowpipeListener listener)
+    {
+        flowpipesResult.add(fp);
+        if (listener != null)
+            listener.flowpipeParsed(this, flowpipesResult.size()-1, fp);
+    }
+    
+    /* Parse a whole mapped output, by parsing each flowpipe in a task of the executor */
+    private void parseInParallel(ByteBuffer bb, final Charset cs, ExecutorService executor) throws IOException, InterruptedException
+    {
+        final MetricsListener ml = Metrics.listener;
+        final AtomicLong readTime = new AtomicLong();
+        long begin = ml == null ? 0 : System.nanoTime();
+        /* Flowpipe boundaries */
+        List <int[]> chunks = new ArrayList <int[]>();
+        int n = bb.limit();
+        int start = 0;
+        for (int i = 0 ; i < n ; i++)
+        {
+            if (bb.get(i) == '|')
+            {
+                chunks.add(new int[] {start, i});
+                start = i+1;
+            }
+        }
+        chunks.add(new int[] {start, n});
+        /* NB : as when splitting on the separators, the trailing empty flowpipes are ignored */
+        while (chunks.size() > 1 && isEmptyChunk(bb, chunks.get(chunks.size()-1))) chunks.remove(chunks.size()-1);
+        
+        /* The variables are declared in the first flowpipe, which is parsed before the others */
+        SpaceExOutputLexer lx = new SpaceExOutputLexer(new InputStreamReader(new ByteBufferInputStream(slice(bb, chunks.get(0))), cs));
+        if (ml != null)
+            lx.measure();
+        readVariables(lx);
+        flowpipesResult.add(readFlowpipe(lx));
+        readTime.addAndGet(lx.getReadTime());
+        List <Future <Flowpipe>> futures = new ArrayList <Future <Flowpipe>>(chunks.size());
+        for (int i = 1 ; i < chunks.size() ; i++)
+        {
+            final ByteBuffer chunk = slice(bb, chunks.get(i));
+            futures.add(executor.submit(new Callable <Flowpipe>()
+                {
+                    public Flowpipe call() throws IOException
+                    {
+                        SpaceExOutputLexer lx = new SpaceExOutputLexer(new InputStreamReader(new ByteBufferInputStream(chunk), cs));
+                        if (ml == null)
+                            return readFlowpipe(lx);
+                        lx.measure();
+                        Flowpipe fp = readFlowpipe(lx);
+                        readTime.addAndGet(lx.getReadTime());
+                        return fp;
+                    }
+                }));
+        }
+        try
+        {
+            for (Future <Flowpipe> f : futures) flowpipesResult.add(f.get());
+        }
+        catch(ExecutionException e)
+        {
+            for (Future <Flowpipe> f : futures) f.cancel(true);
+            /* the exceptions of the parser keep their own message */
+            if (e.getCause() instanceof SpaceExOutputParserException)
+                throw (SpaceExOutputParserException) e.getCause();
+            throw new SpaceExOutputParserException(cfMessage);
+        }
+        catch(InterruptedException e)
+        {
+            for (Future <Flowpipe> f : futures) f.cancel(true);
+            throw e;
+        }
+        if (ml != null)
+            report(ml, n, readTime.get(), System.nanoTime() - begin);
+    }
+    
+    /* tell the metrics listener about the parsing, with the size of the result */
+    private void report(MetricsListener ml, long bytesRead, long readTime, long parseTime)
+    {
+        int hyperplanes = 0;
+        long breakpoints = 0;
+        for (Flowpipe fp : flowpipesResult)
+        {
+            for (HyperplaneInTime h : fp.getHyperplanes())
+            {
+                hyperplanes++;
+                breakpoints += h.getNumberOfTimeSteps();
+            }
+        }
+        ml.outputParsed(new ParsingMetrics(source, bytesRead, readTime, parseTime, flowpipesResult.size(), hyperplanes, breakpoints));
+    }
+    
+    private static ByteBuffer slice(ByteBuffer bb, int[] chunk)
+    {
+        ByteBuffer res = bb.duplicate();
+        res.limit(chunk[1]);
+        res.position(chunk[0]);
+        return res;
+    }
+    
+    private static boolean isEmptyChunk(ByteBuffer bb, int[] chunk)
+    {
+        for (int i = chunk[0] ; i < chunk[1] ; i++)
+            if (bb.get(i) != '\n' && bb.get(i) != '\r')
+                return false;
+        return true;
+    }
+    
+    /* Variables and dimension reading: domain [x:..., y:...] locked */
+    private void readVariables(SpaceExOutputLexer lx) throws IOException
+    {
+        expect(lx.skipTo("domain"));
+        expect(lx.skipTo("["));
+        List <String> vars = new ArrayList <String>();
+        StringBuilder sb = new StringBuilder();
+        int c;
+        do
+        {
+            lx.skipSpaces();
+            sb.setLength(0);
+            lx.readName(sb);
+            vars.add(sb.toString());
+            while ((c = lx.read()) != ',' && c != ']')
+                if (c < 0 || c == '|')
+                    throw new SpaceExOutputParserException(cfMessage);
+        }
+        while (c == ',');
+        expect(lx.skipTo("locked"));
+        d = vars.size();
+        varMap = new HashMap <String, Integer>(d);
+        for (int i = 0 ; i < d ; i++) varMap.put(vars.get(i), i);
+        varTable = new VariableTable(varMap);
+        if (selected != null)
+            selectVariables(vars);
+    }
+    
+    /* Projection onto the selected variables: the directions are still read in the whole space, but the flowpipes are built in the reduced one */
+    private void selectVariables(List <String> vars)
+    {
+        for (String v : selected)
+            if (!varMap.containsKey(v.trim()))
+                throw new SpaceExOutputParserException(ivMessage);
+        Set <String> sel = new HashSet <String>();
+        for (String v : selected) sel.add(v.trim());
+        projection = new int[vars.size()];
+        Map <String, Integer> reduced = new HashMap <String, Integer>(sel.size());
+        for (int i = 0 ; i < vars.size() ; i++)
+        {
+            if (sel.contains(vars.get(i)) && !reduced.containsKey(vars.get(i)))
+            {
+                projection[i] = reduced.size();
+                reduced.put(vars.get(i), reduced.size());
+            }
+            else
+                projection[i] = -1;
+        }
+        varMap = reduced;
+        d = reduced.size();
+    }
+    
+    /* 1 flowpipe reading, up to the next separator: either hyperplanes in time, or polyhedra given by their outer constraints */
+    private Flowpipe readFlowpipe(SpaceExOutputLexer lx) throws IOException
+    {
+        Flowpipe fp = new Flowpipe();
+        OuterConstraintsBuilder outer = null;
+        StringBuilder name = null;
+        int k;
+        while ((k = lx.skipTo(OUTER_CONSTRAINTS_KEYWORD)) == SpaceExOutputLexer.FOUND || k == SpaceExOutputLexer.DIRECTION)
+        {
+            if (k == SpaceExOutputLexer.DIRECTION)
+            {
+                expect(lx.skipTo(SpaceExOutputLexer.DIRECTION_KEYWORD));
+                HyperplaneInTime h = readHyperplane(lx);
+                if (h != null)
+                    fp.addHyperplane(h);
+            }
+            else
+            {
+                if (outer == null)
+                {
+                    outer = new OuterConstraintsBuilder(projection == null ? d : projection.length);
+                    name = new StringBuilder();
+                }
+                readPolyhedron(lx, outer, name);
+            }
+        }
+        /* the directions which are bounded in all the polyhedra become hyperplanes in time */
+        if (outer != null)
+        {
+            for (int j = 0 ; j < outer.getNumberOfDirections() ; j++)
+            {
+                if (outer.isBoundedEverywhere(j))
+                {
+                    int[] idx = outer.getIndices(j);
+                    HyperplaneInTime h = newHyperplane(idx, outer.getValues(j), idx.length);
+                    if (h != null)
+                    {
+                        outer.addConstraintsInTime(j, h);
+                        fp.addHyperplane(h);
+                    }
+                }
+            }
+        }
+        return fp;
+    }
+    
+    /* the hyperplane of a direction, given by the n first coordinates of the arrays, projected onto the selected variables if any,
+       or null if it is dropped */
+    private HyperplaneInTime newHyperplane(int[] idx, double[] val, int n)
+    {
+        HyperplaneInTime h;
+        if (projection == null)
+            h = new HyperplaneInTime(d, idx, val, n, storageFactory.newStorage());
+        else
+            h = project(new HyperplaneInTime(projection.length, idx, val, n));
+        if (h != null)
+            h.internDirection(directions);
+        return h;
+    }
+    
+    /* the hyperplane with the direction projected onto the selected variables, or null if it is dropped */
+    private HyperplaneInTime project(HyperplaneInTime h)
+    {
+        int nnz = h.getNumberOfNonZeros();
+        int[] idx = new int[nnz];
+        double[] val = new double[nnz];
+        int n = 0;
+        for (int k = 0 ; k < nnz ; k++)
+        {
+            int i = projection[h.getNonZeroIndex(k)];
+            if (i >= 0)
+            {
+                idx[n] = i;
+                val[n++] = h.getNonZeroValue(k);
+            }
+        }
+        if (n == nnz)
+            return new HyperplaneInTime(d, idx, val, n, storageFactory.newStorage());
+        if (n > 0 && policy == ProjectionPolicy.FAIL)
+            throw new SpaceExOutputParserException(pjMessage);
+        return null;
+    }
+    
+    /* 1 hyperplane reading: direction [x=1,y=0] plif ... Upper Function ... points [[t, s1, s2, s3], ...] error */
+    private HyperplaneInTime readHyperplane(SpaceExOutputLexer lx) throws IOException
+    {
+        /* Direction extraction, as sparse coordinates */
+        int[] idx = new int[4];
+        double[] val = new double[4];
+        int n = 0;
+        expect(lx.skipTo("["));
+        int c;
+        do
+        {
+            CharSequence key = lx.readKey();
+            int i = key == null ? -1 : varTable.indexOf(key);
+            lx.skipSpaces();
+            if (lx.peek() == '+')
+                lx.read();
+            if (i < 0 || !lx.atNumber())
+                throw new SpaceExOutputParserException(cfMessage);
+            if (n == idx.length)
+            {
+                idx = Arrays.copyOf(idx, 2*n);
+                val = Arrays.copyOf(val, 2*n);
+            }
+            idx[n] = i;
+            val[n++] = lx.readNumber();
+            lx.skipSpaces();
+            c = lx.read();
+        }
+        while (c == ',');
+        if (c != ']')
+            throw new SpaceExOutputParserException(cfMessage);
+        expect(lx.skipTo("plif"));
+        /* Construct the hyperplane in time */
+        HyperplaneInTime h = newHyperplane(idx, val, n);
+        /* Constraints in time extraction */
+        boolean upper = false;
+        while (!upper)
+        {
+            expect(lx.skipTo("Upper"));
+            if (SpaceExOutputLexer.isSpace(lx.peek()))
+            {
+                lx.read();
+                upper = lx.lookingAt("Function");
+            }
+        }
+        expect(lx.skipTo("points"));
+        if (h == null)
+        {
+            expect(lx.skipTo("error"));
+            return null;
+        }
+        int k;
+        while ((k = lx.skipToNumber("error")) == SpaceExOutputLexer.NUMBER)
+        {
+            double t = lx.readNumber();
+            expectNumber(lx.skipToNumber("error"));
+            double s1 = lx.readNumber();
+            expectNumber(lx.skipToNumber("error"));
+            double s2 = lx.readNumber();
+            expectNumber(lx.skipToNumber("error"));
+            double s3 = lx.readNumber();
+            double b = Math.max(s1,Math.max(s2, s3));
+            h.addConstraintInTime(t, b);
+        }
+        expect(k);
+        return h;
+    }
+    
+    /* 1 polyhedron reading: outer constraints: a*x + b*y <= c & ... , where the relations are <=, <, >=, >, == (or =)
+       NB : the formula ends at the first constraint which is not followed by '&' (the lines being concatenated, it must not end with a name) */
+    private void readPolyhedron(SpaceExOutputLexer lx, OuterConstraintsBuilder outer, StringBuilder name) throws IOException
+    {
+        outer.beginPolyhedron();
+        int c;
+        do
+        {
+            /* the terms of the right side are moved to the left one */
+            readLinearExpression(lx, outer, name, 1.0);
+            int relation = readRelation(lx);
+            readLinearExpression(lx, outer, name, -1.0);
+            outer.endConstraint(relation);
+            lx.skipSpaces();
+            c = lx.peek();
+            if (c == '&')
+                lx.read();
+        }
+        while (c == '&');
+        outer.endPolyhedron();
+    }
+    
+    /* a sum of terms, each one being added with the given sign */
+    private void readLinearExpression(SpaceExOutputLexer lx, OuterConstraintsBuilder outer, StringBuilder name, double sign) throws IOException
+    {
+        while (true)
+        {
+            double s = sign;
+            lx.skipSpaces();
+            int c;
+            while ((c = lx.peek()) == '+' || c == '-')
+            {
+                if (c == '-')
+                    s = -s;
+                lx.read();
+                lx.skipSpaces();
+            }
+            readTerm(lx, outer, name, s);
+            lx.skipSpaces();
+            c = lx.peek();
+            if (c != '+' && c != '-')
+                return;
+        }
+    }
+    
+    /* a product of numbers and of at most one variable (or the time t, if it is not a variable) */
+    private void readTerm(SpaceExOutputLexer lx, OuterConstraintsBuilder outer, StringBuilder name, double coef) throws IOException
+    {
+        int var = CONSTANT;
+        while (true)
+        {
+            lx.skipSpaces();
+            if (lx.atNumber())
+                coef *= lx.readNumber();
+            else
+            {
+                name.setLength(0);
+                lx.readName(name);
+                if (name.length() == 0 || var != CONSTANT)
+                    throw new SpaceExOutputParserException(cfMessage);
+                var = varTable.indexOf(name);
+                if (var < 0)
+                {
+                    if (name.length() != 1 || name.charAt(0) != 't')
+                        throw new SpaceExOutputParserException(cfMessage);
+                    var = TIME;
+                }
+            }
+            lx.skipSpaces();
+            if (lx.peek() != '*')
+                break;
+            lx.read();
+        }
+        if (var == CONSTANT)
+            outer.addConstant(coef);
+        else if (var == TIME)
+            outer.addTimeTerm(coef);
+        else
+            outer.addTerm(var, coef);
+    }
+    
+    private static int readRelation(SpaceExOutputLexer lx) throws IOException
+    {
+        int c = lx.read();
+        boolean large = lx.peek() == '=';
+        if (large)
+            lx.read();
+        if (c == '<')
+            return OuterConstraintsBuilder.LESS;
+        if (c == '>')
+            return OuterConstraintsBuilder.GREATER;
+        if (c == '=')
+            return OuterConstraintsBuilder.EQUAL;
+        throw new SpaceExOutputParserException(cfMessage);
+    }
+    
+    private static void close(Closeable c)
+    {
+        try
+        {
+            if (c != null)
+                c.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+    
+    /* the exit code of a process whose output is corrupted, once it has ended, or 0 if it does not end soon (or if the thread is interrupted) */
+    private static int exitCode(Process p)
+    {
+        try
+        {
+            if (p.waitFor(EXIT_DELAY, TimeUnit.MILLISECONDS))
+                return p.exitValue();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+    
+    /* destroy a process, and reap it (forcibly if it does not end soon) */
+    private static void destroy(Process p)
+    {
+        p.destroy();
+        try
+        {
+            if (!p.waitFor(EXIT_DELAY, TimeUnit.MILLISECONDS))
+                p.destroyForcibly().waitFor(EXIT_DELAY, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void expect(int kind)
+    {
+        if (kind != SpaceExOutputLexer.FOUND)
+            throw new SpaceExOutputParserException(cfMessage);
+    }
+    
+    private static void expectNumber(int kind)
+    {
+        if (kind != SpaceExOutputLexer.NUMBER)
+            throw new SpaceExOutputParserException(cfMessage);
+    }
+    
     private List <Flowpipe> flowpipesResult = new ArrayList <Flowpipe>();
     private Map <String, Integer> varMap;
+    private VariableTable varTable;
+    private final DirectionPool directions = new DirectionPool();
     private int d;
-    private final String numbRegex = "-?(\\d+(\\.\\d+)?(e-?(\\d+))?)";
-    private final Pattern pNewFlowpipe = Pattern.compile("\\|");
-    private final Pattern pVarDomain = Pattern.compile("domain.*locked");
-    private final Pattern pExtractVarDomain = Pattern.compile("\\[.*\\]");
-    private final Pattern pVarName = Pattern.compile("((\\d)|(\\w)|(\\.))*");
-    private final Pattern pComma = Pattern.compile(",");
-    private final Pattern pNewDir = Pattern.compile("direction");
-    private final Pattern pExtractDir = Pattern.compile(".*plif");
-    private final Pattern pExtractCoord = Pattern.compile("=");
-    private final Pattern pExtractNumb = Pattern.compile(numbRegex);
-    private final Pattern pExtractSecMemb = Pattern.compile("Upper\\sFunction.*error");
-    private final Pattern pExtractSecMemb2 = Pattern.compile("points.*error");
-    private final Pattern pOuterConstraints = Pattern.compile("outer constraints:.*");
-    private final Pattern pAnd = Pattern.compile("&");
-    private final Pattern pExtractFormula = Pattern.compile("(>=)|(<=)|(==)");
-    private final Pattern pExtractStrictFormula = Pattern.compile(">|<");
-    private final Pattern pExtractRelation = Pattern.compile("(>=)|(<=)|(==)|>|<");
-    private final Pattern pSplitPlus = Pattern.compile("\\+");
-    private final Pattern pSplitStar = Pattern.compile("\\*");
-    private final VectorCalculator vc = ImplementationFactory.getNewVectorCalculator();
-    private static final String cfMessage = "The given file is corrupted.";
+    private Collection <String> selected;
+    private ProjectionPolicy policy;
+    private int[] projection;
+    private String source;
+    private BreakpointStorageFactory storageFactory = BreakpointStorageFactory.HEAP;
+    private static final String OUTER_CONSTRAINTS_KEYWORD = "outer constraints:";
+    private static final int CONSTANT = -1;
+    private static final int TIME = -2;
+    private static final long EXIT_DELAY = 1000;
+    static final String cfMessage = "The given file is corrupted.";
+    static final String inMessage = "The parsing has been interrupted.";
+    static final String tmMessage = "A polyhedron of the outer constraints has no bounded time interval.";
+    static final String exMessage = "The process has failed with the exit code ";
+    private static final String pjMessage = "A direction involves both selected and other variables.";
     private static final String ivMessage = "The given variable doesn't exist in the given system.";
 }
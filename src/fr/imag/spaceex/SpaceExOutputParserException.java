@@ -35,4 +35,13 @@ public class SpaceExOutputParserException extends RuntimeException
     {
         super(mes);
     }
+    
+    /** Create a new SpaceExOutputParserException specifying the reason by a message, and the exception which has caused it.
+     ** @param mes the message.
+     ** @param cause the cause.
+     **/
+    public SpaceExOutputParserException(String mes, Throwable cause)
+    {
+        super(mes, cause);
+    }
 }
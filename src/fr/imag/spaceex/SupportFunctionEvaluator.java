@@ -0,0 +1,38 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import fr.imag.ppplib.*;
+
+/** An evaluator of the support function of a polyhedron, i.e. of the maximum of d.x over the polyhedron (e.g. by a LP of 3plib).
+ ** It is used when a bound cannot be read directly from the hyperplanes of a flowpipe (see Flowpipe.boundingBoxAt).
+ **/
+
+public interface SupportFunctionEvaluator
+{
+    /** Evaluate the support function of a polyhedron in a direction.
+     ** @param p the polyhedron.
+     ** @param d the direction.
+     ** @return the maximum of d.x for x in p, or +infinity if it is unbounded.
+     **/
+    double evaluate(ConvexPolyhedronSupportFunction p, double[] d);
+}
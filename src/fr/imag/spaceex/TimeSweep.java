@@ -0,0 +1,140 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.util.List;
+
+/** A sweep over the merged time steps of several hyperplanes in time, in increasing order.
+ ** One cursor per hyperplane moves forward, so that going through all the time steps costs O(T.H) evaluations.
+ **/
+
+class TimeSweep
+{
+    /** Create a sweep which starts before the first time step.
+     ** @param hitl the hyperplanes, which are sealed.
+     **/
+    TimeSweep(List <HyperplaneInTime> hitl)
+    {
+        hyps = hitl.toArray(new HyperplaneInTime[hitl.size()]);
+        storages = new BreakpointStorage[hyps.length];
+        cursors = new int[hyps.length];
+        values = new double[hyps.length];
+        for (int h = 0 ; h < hyps.length ; h++)
+        {
+            hyps[h].seal();
+            storages[h] = hyps[h].getStorage();
+        }
+        findUpcoming();
+    }
+    
+    /** Tell whether there is a next time step.
+     ** @return true if there is.
+     **/
+    boolean hasNext()
+    {
+        return more;
+    }
+    
+    /** Give the next time step, without moving to it.
+     ** @return the time.
+     **/
+    double peek()
+    {
+        return upcoming;
+    }
+    
+    /** Move to the next time step, and evaluate all the hyperplanes at this time.
+     ** @return the time.
+     **/
+    double next()
+    {
+        double t = upcoming;
+        for (int h = 0 ; h < hyps.length ; h++) values[h] = hyps[h].evaluate(cursors[h], t);
+        return advance();
+    }
+    
+    /** Move to the next time step, without evaluating the hyperplanes.
+     ** @return the time.
+     **/
+    double advance()
+    {
+        double t = upcoming;
+        double u = Double.POSITIVE_INFINITY;
+        boolean m = false;
+        for (int h = 0 ; h < hyps.length ; h++)
+        {
+            BreakpointStorage s = storages[h];
+            int k = cursors[h];
+            int n = s.size();
+            while (k < n && s.getTime(k) <= t) k++;
+            cursors[h] = k;
+            if (k < n && (!m || s.getTime(k) < u))
+            {
+                u = s.getTime(k);
+                m = true;
+            }
+        }
+        upcoming = u;
+        more = m;
+        return t;
+    }
+    
+    /** Move before the first time step which is not before a given time.
+     ** @param t the time.
+     **/
+    void seek(double t)
+    {
+        for (int h = 0 ; h < hyps.length ; h++) cursors[h] = hyps[h].search(t);
+        findUpcoming();
+    }
+    
+    /** Give b(t) of a hyperplane at the current time step.
+     ** @param h the index of the hyperplane.
+     ** @return b(t).
+     **/
+    double getConstraint(int h)
+    {
+        return values[h];
+    }
+    
+    private void findUpcoming()
+    {
+        more = false;
+        upcoming = Double.POSITIVE_INFINITY;
+        for (int h = 0 ; h < hyps.length ; h++)
+        {
+            BreakpointStorage s = storages[h];
+            if (cursors[h] < s.size() && (!more || s.getTime(cursors[h]) < upcoming))
+            {
+                upcoming = s.getTime(cursors[h]);
+                more = true;
+            }
+        }
+    }
+    
+    private final HyperplaneInTime[] hyps;
+    private final BreakpointStorage[] storages;
+    private final int[] cursors;
+    private final double[] values;
+    private double upcoming;
+    private boolean more;
+}
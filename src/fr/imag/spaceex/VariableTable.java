@@ -0,0 +1,73 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.util.Map;
+
+/** A lookup table from variable names to their index, which can be queried with any CharSequence (so without building a String).
+ **/
+
+class VariableTable
+{
+    /** Create a table from a map of the variables.
+     ** @param varMap the map from the variable names to their index.
+     **/
+    VariableTable(Map <String, Integer> varMap)
+    {
+        int n = varMap.size();
+        int cap = 4;
+        while (cap < 2*n) cap *= 2;
+        names = new String[cap];
+        indices = new int[cap];
+        for (Map.Entry <String, Integer> e : varMap.entrySet())
+        {
+            int s = slot(e.getKey());
+            names[s] = e.getKey();
+            indices[s] = e.getValue();
+        }
+    }
+
+    /** Give the index of a variable.
+     ** @param name the variable name.
+     ** @return the index, or -1 if the variable doesn't exist.
+     **/
+    int indexOf(CharSequence name)
+    {
+        int s = slot(name);
+        return names[s] == null ? -1 : indices[s];
+    }
+
+    /* the slot of the name, or the empty slot where it would be */
+    private int slot(CharSequence name)
+    {
+        int h = 0;
+        int n = name.length();
+        for (int i = 0 ; i < n ; i++) h = 31*h + name.charAt(i);
+        int mask = names.length - 1;
+        int s = (h ^ (h >>> 16)) & mask;
+        while (names[s] != null && !names[s].contentEquals(name)) s = (s + 1) & mask;
+        return s;
+    }
+
+    private final String[] names;
+    private final int[] indices;
+}
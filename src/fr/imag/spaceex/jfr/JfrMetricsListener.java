@@ -0,0 +1,132 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex.jfr;
+
+import fr.imag.spaceex.MetricsListener;
+import fr.imag.spaceex.ParsingMetrics;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** A metrics listener which commits the metrics of the library as Java Flight Recorder events,
+ ** "fr.imag.spaceex.Parsing" and "fr.imag.spaceex.PolyhedraBuilt", so that they are recorded with the other events of the JVM.
+ ** It is registered with Metrics.setListener(new JfrMetricsListener()), and the events can then be enabled or disabled in the recordings.
+ ** NB : it requires a JVM with JFR (Java 11, or Java 8 from the update 262), so it is compiled apart from the library.
+ **/
+
+public class JfrMetricsListener implements MetricsListener
+{
+    /** Commit a parsing event, if it is enabled.
+     ** @param metrics the figures of the parsing.
+     **/
+    public void outputParsed(ParsingMetrics metrics)
+    {
+        ParsingEvent e = new ParsingEvent();
+        if (!e.shouldCommit())
+            return;
+        e.source = metrics.getSource();
+        e.bytesRead = metrics.getBytesRead();
+        e.readTime = metrics.getReadTime();
+        e.parseTime = metrics.getParseTime();
+        e.throughput = metrics.getThroughput();
+        e.flowpipes = metrics.getFlowpipes();
+        e.hyperplanes = metrics.getHyperplanes();
+        e.breakpoints = metrics.getBreakpoints();
+        e.commit();
+    }
+    
+    /** Commit a polyhedra event, if it is enabled.
+     ** @param polyhedra the number of polyhedra which have been built.
+     ** @param hyperplanes the number of hyperplanes of the flowpipe.
+     ** @param time the time spent in the conversion, in nanoseconds.
+     **/
+    public void polyhedraBuilt(int polyhedra, int hyperplanes, long time)
+    {
+        PolyhedraEvent e = new PolyhedraEvent();
+        if (!e.shouldCommit())
+            return;
+        e.polyhedra = polyhedra;
+        e.hyperplanes = hyperplanes;
+        e.buildTime = time;
+        e.commit();
+    }
+    
+    /* The parsing of an output */
+    @Name("fr.imag.spaceex.Parsing")
+    @Label("SpaceEx Output Parsing")
+    @Category("SpaceEx Adapter")
+    @StackTrace(false)
+    static class ParsingEvent extends Event
+    {
+        @Label("Source")
+        String source;
+        
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+        
+        @Label("Read Time")
+        @Description("Time spent waiting for the input")
+        @Timespan
+        long readTime;
+        
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+        
+        @Label("Throughput")
+        @Description("Bytes parsed by second")
+        double throughput;
+        
+        @Label("Flowpipes")
+        int flowpipes;
+        
+        @Label("Hyperplanes")
+        int hyperplanes;
+        
+        @Label("Breakpoints")
+        long breakpoints;
+    }
+    
+    /* The conversion of a flowpipe into polyhedra */
+    @Name("fr.imag.spaceex.PolyhedraBuilt")
+    @Label("SpaceEx Polyhedra Built")
+    @Category("SpaceEx Adapter")
+    @StackTrace(false)
+    static class PolyhedraEvent extends Event
+    {
+        @Label("Polyhedra")
+        int polyhedra;
+        
+        @Label("Hyperplanes")
+        int hyperplanes;
+        
+        @Label("Build Time")
+        @Timespan
+        long buildTime;
+    }
+}
@@ -0,0 +1,16 @@
+# Regression checks of the library
+# The jar of 3plib is expected in PPPLIB_JAR.
+PPPLIB_JAR=${PPPLIB_JAR:-../3plib-download/3plib-0.1.0.jar}
+# Remove the last compilation
+echo 'Remove the last check compilation...'
+rm -rf test/compiled
+mkdir -p test/compiled/classes
+echo 'Done !'
+# Library and checks compilation
+echo 'Compile the library and the checks...'
+javac -cp $PPPLIB_JAR -d test/compiled/classes src/fr/imag/spaceex/*.java test/src/fr/imag/spaceex/*.java bench/src/fr/imag/spaceex/bench/SpaceExOutputGenerator.java || exit 1
+echo 'Done !'
+# Checks
+echo 'Run the checks...'
+java -ea -cp test/compiled/classes:$PPPLIB_JAR fr.imag.spaceex.RegressionChecks || exit 1
+echo 'Done !'
@@ -0,0 +1,1327 @@
+/** SpaceEx Adapter for Polygonal Planar Projection LIBrary (3plib)
+ ** Copyright © 2016 Frédéric Viry
+ ** author: Frédéric Viry (Laboratoire Verimag, Grenoble, France)
+ ** mail: frederic.viry@grenoble-inp.org
+ **
+ ** This file is part of spaceex-adapter.
+ **
+ ** spaceex-adapter is free software: you can redistribute it and/or modify
+ ** it under the terms of the GNU Lesser General Public License as published by
+ ** the Free Software Foundation, either version 3 of the License, or
+ ** at your option) any later version.
+ ** 
+ ** spaceex-adapter is distributed in the hope that it will be useful,
+ ** but WITHOUT ANY WARRANTY; without even the implied warranty of
+ ** MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ ** GNU Lesser General Public License for more details.
+ ** 
+ ** You should have received a copy of the GNU Lesser General Public License
+ ** along with spaceex-adapter. If not, see <http://www.gnu.org/licenses/>.
+ **/
+
+package fr.imag.spaceex;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fr.imag.ppplib.*;
+import fr.imag.spaceex.bench.SpaceExOutputGenerator;
+
+/** Regression checks of the library, run by test.sh (without a test framework, so that they run offline).
+ ** Each check throws an AssertionError when it fails.
+ **/
+
+public class RegressionChecks
+{
+    public static void main(String[] args)
+    {
+        lexerAsTheRegularExpressions();
+        parallelParsingKeepsTheOrder();
+        columnsAsTheListOfPairs();
+        sweepAsTheSetOfTimeSteps();
+        lazyPolyhedra();
+        timeWindows();
+        cachedPolyhedra();
+        sparseDirections();
+        cacheRoundTrip();
+        corruptedCaches();
+        composedViews();
+        mergeKeepsTheJumps();
+        mergeIsTheTighterBound();
+        simplifyWithTinyTolerances();
+        simplifyIsSound();
+        outerConstraintsWithCrossingLines();
+        outerConstraintsWithOverlappingPolyhedra();
+        outerConstraintsWithoutTime();
+        followerGivesTheFlowpipesWhileTheyAreWritten();
+        batchFuturesCompleteWhenTheListenerThrows();
+        storagesAsTheHeap();
+        heapFreezeIsASnapshot();
+        offHeapFreezeStaysInPlace();
+        scratchFileReusesItsBuffers();
+        parallelParsingKeepsTheMessages();
+        projectionPolicies();
+        parallelProjections();
+        storageFactoriesOfAllTheInputs();
+        boundsOnATimeGrid();
+        boundsInDirectBuffers();
+        streamInputs();
+        processOutputs();
+        segmentsAboveTheJumps();
+        boundingBoxes();
+        metricsOfTheParsingAndThePolyhedra();
+        generatedOutputs();
+        failedProcesses();
+        System.out.println("All the checks passed.");
+    }
+    
+    /* the streaming lexer gives the flowpipes which the regular expressions of the first release give, on random outputs */
+    static void lexerAsTheRegularExpressions()
+    {
+        Random rnd = new Random(1);
+        for (int run = 0 ; run < 100 ; run++)
+        {
+            String output = randomOutput(rnd);
+            List <Flowpipe> expected = regexFlowpipes(output);
+            check(sameFlowpipes(expected, new SpaceExOutputParser(new StringReader(output)).getFlowpipes()), "the lexer differs on:\n" + output);
+        }
+    }
+    
+    /* the parallel parsing gives the flowpipes of the sequential one, in the order of the file, with empty and trailing flowpipes */
+    static void parallelParsingKeepsTheOrder()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            StringBuilder sb = new StringBuilder("Reachability result\nvariables domain: [x:real, y:real] locked\n");
+            for (int f = 0 ; f < 300 ; f++)
+            {
+                if (f > 0)
+                    sb.append("|\n");
+                if (f % 7 == 3)
+                    continue;
+                for (int k = 0 ; k <= f % 3 ; k++)
+                    sb.append("direction: [x=1,y=").append(k).append("] plif: Upper Function: points: [[").append(f).append(", ").append(f + k)
+                      .append(", 0, 0],[").append(f+1).append(", ").append(-f).append(", 0, 0]] error: 0\n");
+            }
+            sb.append("|\n|\n");
+            String file = writeTemporaryFile(sb.toString());
+            List <Flowpipe> seq = new SpaceExOutputParser(file).getFlowpipes();
+            List <Flowpipe> par = new SpaceExOutputParser(file, executor).getFlowpipes();
+            check(seq.size() == 300 && sameFlowpipes(seq, par), "the parallel parsing differs from the sequential one");
+            for (int f = 0 ; f < 300 ; f++)
+                check(f % 7 == 3 ? par.get(f).getHyperplanes().isEmpty() : par.get(f).getHyperplanes().get(0).getTimeStep(0) == f, "wrong flowpipe at " + f);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    /* the breakpoints in primitive columns are sorted and evaluated as the list of pairs of the first release */
+    static void columnsAsTheListOfPairs()
+    {
+        Random rnd = new Random(3);
+        for (int run = 0 ; run < 100 ; run++)
+        {
+            HyperplaneInTime h = new HyperplaneInTime(new double[] {1.0, -1.0});
+            List <double[]> pairs = new ArrayList <double[]>();
+            int n = 1 + rnd.nextInt(50);
+            for (int i = 0 ; i < n ; i++)
+            {
+                double[] c = {rnd.nextInt(20)/4.0, rnd.nextDouble()};
+                pairs.add(c);
+                h.addConstraintInTime(c[0], c[1]);
+                if (rnd.nextInt(10) == 0)
+                    h.getConstraint(c[0]);
+            }
+            /* stable sort by time */
+            Collections.sort(pairs, new Comparator <double[]>()
+                {
+                    public int compare(double[] a, double[] b)
+                    {
+                        return Double.compare(a[0], b[0]);
+                    }
+                });
+            check(h.getNumberOfTimeSteps() == n && h.getTimeSteps().size() == n, "wrong number of time steps: " + h);
+            for (int i = 0 ; i < n ; i++)
+                check(h.getTimeStep(i) == pairs.get(i)[0] && h.getConstraintAtTimeStep(i) == pairs.get(i)[1], "wrong sorted breakpoints: " + h);
+            for (double t = -1 ; t <= 6 ; t += 1.0/16)
+            {
+                double b = h.getConstraint(t);
+                double e = pairsConstraint(pairs, t);
+                check(b == e || (Double.isNaN(b) && Double.isNaN(e)), "wrong bound at " + t + ": " + b + " instead of " + e);
+            }
+        }
+    }
+    
+    /* b(t) of sorted pairs (time, bound), as the first release evaluates it */
+    static double pairsConstraint(List <double[]> pairs, double t)
+    {
+        if (t < pairs.get(0)[0])
+            return pairs.get(0)[1];
+        int i = 1;
+        int n = pairs.size();
+        while (i < n && pairs.get(i)[0] < t) i++;
+        if (i == n)
+            return pairs.get(i-1)[1];
+        double tp = (t - pairs.get(i-1)[0])/(pairs.get(i)[0] - pairs.get(i-1)[0]);
+        return (1-tp)*pairs.get(i-1)[1] + tp*pairs.get(i)[1];
+    }
+    
+    /* the merge sweep gives the sorted set of the time steps of the first release, and b(t) of each hyperplane there, also after a seek */
+    static void sweepAsTheSetOfTimeSteps()
+    {
+        Random rnd = new Random(4);
+        for (int run = 0 ; run < 100 ; run++)
+        {
+            Flowpipe fp = new Flowpipe();
+            TreeSet <Double> times = new TreeSet <Double>();
+            for (int j = 0 ; j < 1 + rnd.nextInt(4) ; j++)
+            {
+                HyperplaneInTime h = randomHyperplane(rnd, 1.0 + j);
+                fp.addHyperplane(h);
+                times.addAll(h.getTimeSteps());
+            }
+            List <HyperplaneInTime> hitl = fp.getHyperplanes();
+            TimeSweep sweep = new TimeSweep(hitl);
+            for (double t : times)
+            {
+                check(sweep.hasNext() && sweep.peek() == t && sweep.next() == t, "wrong time step of the sweep instead of " + t);
+                for (int j = 0 ; j < hitl.size() ; j++)
+                    check(sweep.getConstraint(j) == hitl.get(j).getConstraint(t), "wrong bound of the sweep at " + t);
+            }
+            check(!sweep.hasNext(), "the sweep has too many time steps");
+            check(fp.polyhedralRepresentation().size() == times.size(), "wrong number of polyhedra");
+            Double[] steps = times.toArray(new Double[times.size()]);
+            double t0 = steps[rnd.nextInt(steps.length)];
+            sweep.seek(t0);
+            check(sweep.next() == t0, "wrong time step after a seek to " + t0);
+            for (int j = 0 ; j < hitl.size() ; j++)
+                check(sweep.getConstraint(j) == hitl.get(j).getConstraint(t0), "wrong bound after a seek to " + t0);
+        }
+    }
+    
+    /* the iterator, the spliterator and the streams give as many polyhedra as the list, and the splits cover all the time steps */
+    static void lazyPolyhedra()
+    {
+        Random rnd = new Random(5);
+        Flowpipe fp = new Flowpipe();
+        for (int j = 0 ; j < 3 ; j++) fp.addHyperplane(randomHyperplane(rnd, 1.0 + j));
+        int n = fp.polyhedralRepresentation().size();
+        int k = 0;
+        for (Iterator <ConvexPolyhedronSupportFunction> it = fp.polyhedralIterator() ; it.hasNext() ; it.next()) k++;
+        check(k == n, "wrong number of polyhedra of the iterator: " + k + " instead of " + n);
+        check(fp.polyhedralStream().count() == n && fp.polyhedralStream().parallel().count() == n, "wrong number of polyhedra of the streams");
+        Spliterator <ConvexPolyhedronSupportFunction> s1 = fp.polyhedralSpliterator();
+        check(s1.estimateSize() == n, "wrong size of the spliterator");
+        Spliterator <ConvexPolyhedronSupportFunction> s2 = s1.trySplit();
+        check(s2 != null && s1.estimateSize() + s2.estimateSize() == n, "wrong split of the spliterator");
+        final int[] count = {0};
+        Consumer <ConvexPolyhedronSupportFunction> counter = new Consumer <ConvexPolyhedronSupportFunction>()
+            {
+                public void accept(ConvexPolyhedronSupportFunction p)
+                {
+                    check(p != null, "a null polyhedron");
+                    count[0]++;
+                }
+            };
+        while (s1.tryAdvance(counter)) ;
+        while (s2.tryAdvance(counter)) ;
+        check(count[0] == n, "the splits do not cover the time steps: " + count[0] + " instead of " + n);
+    }
+    
+    /* the cache gives back the polyhedra it has built, until the flowpipe is modified, and keeps its capacity */
+    static void cachedPolyhedra()
+    {
+        Random rnd = new Random(18);
+        Flowpipe fp = new Flowpipe();
+        HyperplaneInTime h = randomHyperplane(rnd, 1.0);
+        fp.addHyperplane(h);
+        fp.addHyperplane(randomHyperplane(rnd, 2.0));
+        int n = fp.polyhedralRepresentation().size();
+        PolyhedronCache cache = new PolyhedronCache(1000);
+        List <ConvexPolyhedronSupportFunction> l1 = fp.polyhedralRepresentation(cache);
+        check(l1.size() == n && cache.getMissCount() == n && cache.getHitCount() == 0 && cache.size() == n, "wrong first use of the cache");
+        List <ConvexPolyhedronSupportFunction> l2 = fp.polyhedralRepresentation(cache);
+        check(cache.getHitCount() == n && cache.getMissCount() == n, "the polyhedra have not been found in the cache");
+        for (int i = 0 ; i < n ; i++)
+            check(l1.get(i) == l2.get(i), "the polyhedron " + i + " has not been reused");
+        /* a modification of a hyperplane invalidates the polyhedra of the flowpipe */
+        h.addConstraintInTime(11.0, 1.0);
+        int m = fp.polyhedralRepresentation().size();
+        List <ConvexPolyhedronSupportFunction> l3 = fp.polyhedralRepresentation(cache);
+        check(l3.size() == m && cache.getHitCount() == n && cache.getMissCount() == n + m, "the cache has not been invalidated by a new constraint");
+        check(l3.get(0) != l1.get(0), "a polyhedron of a previous version of the flowpipe has been reused");
+        /* the flowpipes are compared by identity, so an equal flowpipe does not share the polyhedra */
+        Flowpipe other = new Flowpipe();
+        other.addHyperplane(h);
+        other.polyhedralRepresentation(cache);
+        check(cache.getHitCount() == n, "the polyhedra of another flowpipe have been reused");
+        /* the least recently used polyhedra are evicted */
+        PolyhedronCache small = new PolyhedronCache(2);
+        fp.polyhedralRepresentation(small);
+        check(small.size() == 2 && small.getEvictionCount() == m - 2, "wrong evictions: " + small.getEvictionCount() + " instead of " + (m - 2));
+        small.clear();
+        check(small.size() == 0 && small.getMissCount() == m, "wrong clear of the cache");
+        try
+        {
+            new PolyhedronCache(0);
+            check(false, "a cache without capacity has been created");
+        }
+        catch (FlowpipeException e)
+        {
+        }
+    }
+    
+    /* the polyhedra of a time window are the ones of its time steps, including its ends, and the index follows the modifications */
+    static void timeWindows()
+    {
+        Random rnd = new Random(6);
+        Flowpipe fp = new Flowpipe();
+        TreeSet <Double> times = new TreeSet <Double>();
+        for (int j = 0 ; j < 3 ; j++)
+        {
+            HyperplaneInTime h = randomHyperplane(rnd, 1.0 + j);
+            fp.addHyperplane(h);
+            times.addAll(h.getTimeSteps());
+        }
+        for (int run = 0 ; run < 100 ; run++)
+        {
+            double t1 = rnd.nextInt(48)/4.0 - 1;
+            double t2 = t1 + rnd.nextInt(16)/4.0 - 1;
+            int n = t2 < t1 ? 0 : times.subSet(t1, true, t2, true).size();
+            check(fp.polyhedraBetween(t1, t2).size() == n, "wrong number of polyhedra in [" + t1 + ", " + t2 + "]");
+        }
+        fp.getHyperplanes().get(0).addConstraintInTime(20, 1);
+        check(fp.polyhedraBetween(10, 30).size() == times.subSet(10.0, true, 30.0, true).size() + 1, "the index has not been built again");
+    }
+    
+    /* the directions keep their non-zero coordinates only, sorted by index, whatever the way they are given */
+    static void sparseDirections()
+    {
+        HyperplaneInTime h = new HyperplaneInTime(5, new int[] {3, 0, 3, 4, 1}, new double[] {7, -1, 2, 0, 0.5});
+        check(Arrays.equals(h.getNormalDirection(), new double[] {-1, 0.5, 0, 2, 0}), "wrong direction: " + h);
+        check(h.getNumberOfNonZeros() == 3 && h.getNonZeroIndex(0) == 0 && h.getNonZeroIndex(1) == 1 && h.getNonZeroIndex(2) == 3
+              && h.getNonZeroValue(2) == 2, "wrong sparse direction: " + h);
+        HyperplaneInTime d = new HyperplaneInTime(new double[] {0, 0, 3, 0});
+        check(d.getDimension() == 4 && d.getNumberOfNonZeros() == 1 && d.getNonZeroIndex(0) == 2, "wrong sparse dense direction: " + d);
+        try
+        {
+            new HyperplaneInTime(2, new int[] {2}, new double[] {1});
+            check(false, "a coordinate out of the vectorspace has been accepted");
+        }
+        catch (FlowpipeException e)
+        {
+        }
+        Flowpipe fp = new SpaceExOutputParser(new StringReader(OUTPUT)).getFlowpipes().get(0);
+        HyperplaneInTime p = fp.getHyperplanes().get(1);
+        check(p.getNumberOfNonZeros() == 1 && p.getNonZeroIndex(0) == 1 && p.getNonZeroValue(0) == -1, "wrong parsed sparse direction: " + p);
+    }
+    
+    /* the cached output is the parsed one, and the cache is invalidated by a modification of the output */
+    static void cacheRoundTrip()
+    {
+        try
+        {
+            String f = writeTemporaryFile(OUTPUT);
+            new File(f + ".fpcache").deleteOnExit();
+            SpaceExOutputParser parsed = new SpaceExOutputParser(f);
+            SpaceExOutputParser first = SpaceExOutputParser.parseWithCache(f);
+            check(new File(f + ".fpcache").isFile(), "the cache has not been written");
+            SpaceExOutputParser cached = SpaceExOutputParser.parseWithCache(f);
+            check(sameFlowpipes(parsed.getFlowpipes(), first.getFlowpipes()) && sameFlowpipes(parsed.getFlowpipes(), cached.getFlowpipes()),
+                  "the cached output differs from the parsed one");
+            check(cached.getDimension() == 2 && Arrays.equals(cached.getVectorFromVariable("y"), parsed.getVectorFromVariable("y")), "wrong cached variables");
+            FileWriter w = new FileWriter(f, true);
+            w.write("|\ndirection: [x=1,y=1] plif: Upper Function: points: [[0, 7, 0, 0]] error: 0\n");
+            w.close();
+            SpaceExOutputParser modified = SpaceExOutputParser.parseWithCache(f);
+            check(sameFlowpipes(new SpaceExOutputParser(f).getFlowpipes(), modified.getFlowpipes()) && modified.getFlowpipes().size() == 3,
+                  "the cache of a modified output has been used");
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+    }
+    
+    /* a corrupted cache is a miss, even when a count asks for a huge allocation, and the output is parsed again */
+    static void corruptedCaches()
+    {
+        try
+        {
+            String f = writeTemporaryFile(OUTPUT);
+            File cache = new File(f + ".fpcache");
+            cache.deleteOnExit();
+            List <Flowpipe> parsed = new SpaceExOutputParser(f).getFlowpipes();
+            SpaceExOutputParser.parseWithCache(f);
+            byte[] valid = Files.readAllBytes(cache.toPath());
+            /* after the header (32 bytes) and the dimension: the counts of the variables, of the chars of their names, and of the flowpipes */
+            int[] counts = {36, 40, 50, 60};
+            for (int k = 0 ; k < counts.length + 1 ; k++)
+            {
+                byte[] bytes = valid.clone();
+                if (k < counts.length)
+                    ByteBuffer.wrap(bytes).putInt(counts[k], Integer.MAX_VALUE - 1);
+                else
+                    bytes = Arrays.copyOf(bytes, bytes.length/2);
+                Files.write(cache.toPath(), bytes);
+                check(sameFlowpipes(parsed, SpaceExOutputParser.parseWithCache(f).getFlowpipes()), "a corrupted cache has been used");
+            }
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+    }
+    
+    /* a composed flowpipe shares the constraints of its operands while they keep their storages, and copies them when it is modified */
+    static void composedViews()
+    {
+        HyperplaneInTime x = new HyperplaneInTime(new double[] {1.0});
+        x.addConstraintInTime(0, 1);
+        HyperplaneInTime y = new HyperplaneInTime(2, new int[] {1}, new double[] {-2.0});
+        y.addConstraintInTime(0, 2);
+        Flowpipe f1 = new Flowpipe();
+        f1.addHyperplane(x);
+        Flowpipe f2 = new Flowpipe();
+        f2.addHyperplane(y);
+        Flowpipe c = Flowpipe.compose(f1, f2, f1);
+        check(c.getHyperplanes().size() == 3, "wrong composition: " + c);
+        HyperplaneInTime cx = c.getHyperplanes().get(0);
+        HyperplaneInTime cy = c.getHyperplanes().get(1);
+        HyperplaneInTime cz = c.getHyperplanes().get(2);
+        check(Arrays.equals(cy.getNormalDirection(), new double[] {0, 0, -2, 0}) && Arrays.equals(cz.getNormalDirection(), new double[] {0, 0, 0, 1}),
+              "wrong shifted directions: " + c);
+        check(cy.getNumberOfNonZeros() == 1 && cy.getNonZeroIndex(0) == 2 && cy.getNonZeroValue(0) == -2, "wrong sparse direction: " + cy);
+        check(sameFlowpipes(Arrays.asList(c), Arrays.asList(f1.composeWith(f2).composeWith(f1))), "the n-ary composition differs from the pairwise one");
+        /* the constraints added to an operand are visible */
+        x.addConstraintInTime(1, 3);
+        check(cx.getNumberOfTimeSteps() == 2 && cx.getConstraint(0.5) == 2 && cz.getConstraint(1) == 3, "the view does not see its operand: " + cx);
+        /* a modified view takes its own copy */
+        cx.addConstraintInTime(2, 5);
+        check(x.getNumberOfTimeSteps() == 2 && cz.getNumberOfTimeSteps() == 2 && cx.getNumberOfTimeSteps() == 3, "the view has modified its operand: " + x);
+        /* a view of a view which is modified keeps the constraints it had */
+        Flowpipe cc = Flowpipe.compose(c, f2);
+        cy.addConstraintInTime(1, 4);
+        check(cc.getHyperplanes().get(1).getNumberOfTimeSteps() == 1 && y.getNumberOfTimeSteps() == 1, "wrong view of a modified view: " + cc);
+    }
+    
+    /* the merged bound keeps both the bounds before and after a jump of an operand */
+    static void mergeKeepsTheJumps()
+    {
+        HyperplaneInTime h1 = new HyperplaneInTime(new double[] {1.0});
+        h1.addConstraintInTime(0, 0);
+        h1.addConstraintInTime(1, 0);
+        h1.addConstraintInTime(1, 10);
+        h1.addConstraintInTime(2, 10);
+        HyperplaneInTime h2 = new HyperplaneInTime(new double[] {2.0});
+        h2.addConstraintInTime(0, 200);
+        h2.addConstraintInTime(2, 200);
+        Flowpipe fp = new Flowpipe();
+        fp.addHyperplane(h1);
+        fp.addHyperplane(h2);
+        HyperplaneInTime m = fp.mergeParallelHyperplanes().getHyperplanes().get(0);
+        check(m.getConstraint(1) == 0 && m.getConstraint(1.5) == 10 && m.getConstraint(2) == 10, "the merge has lost a jump: " + m);
+    }
+    
+    /* the merged bound is the tighter one of the operands (rescaled), with jumps in both of them */
+    static void mergeIsTheTighterBound()
+    {
+        Random rnd = new Random(10);
+        for (int run = 0 ; run < 200 ; run++)
+        {
+            HyperplaneInTime h1 = randomHyperplane(rnd, 1.0);
+            HyperplaneInTime h2 = randomHyperplane(rnd, 4.0);
+            Flowpipe fp = new Flowpipe();
+            fp.addHyperplane(h1);
+            fp.addHyperplane(h2);
+            HyperplaneInTime m = fp.mergeParallelHyperplanes().getHyperplanes().get(0);
+            for (double t = -1 ; t <= 12 ; t += 1.0/128)
+            {
+                double b = Math.min(h1.getConstraint(t), h2.getConstraint(t)/4);
+                check(m.getConstraint(t) >= b - 1e-9 && m.getConstraint(t) <= b + 1e-9, "wrong merged bound at " + t + ": " + m);
+            }
+        }
+    }
+    
+    /* a hyperplane of direction (c) with random breakpoints over [0, 10], and some jumps (after the first time step) */
+    static HyperplaneInTime randomHyperplane(Random rnd, double c)
+    {
+        HyperplaneInTime h = new HyperplaneInTime(new double[] {c});
+        double t = 0;
+        while (t < 10)
+        {
+            h.addConstraintInTime(t, c*10*rnd.nextDouble());
+            if (t > 0 && rnd.nextInt(3) == 0)
+                h.addConstraintInTime(t, c*10*rnd.nextDouble());
+            t += 0.25*(1 + rnd.nextInt(4));
+        }
+        return h;
+    }
+    
+    /* a tolerance below the rounding margin keeps the time steps, only raised, without NaN */
+    static void simplifyWithTinyTolerances()
+    {
+        for (double tol : new double[] {0, 1e-15, 1e-300})
+        {
+            HyperplaneInTime h = new HyperplaneInTime(new double[] {1.0});
+            h.addConstraintInTime(0, 1);
+            h.addConstraintInTime(1, 2);
+            h.addConstraintInTime(2, 1.5);
+            HyperplaneInTime r = h.simplify(tol, 0);
+            check(r.getNumberOfTimeSteps() == 3, "simplify(" + tol + ") changed the time steps: " + r);
+            for (int i = 0 ; i < 3 ; i++)
+            {
+                check(r.getTimeStep(i) == i, "simplify(" + tol + ") changed the time steps: " + r);
+                double b = r.getConstraintAtTimeStep(i);
+                check(b >= h.getConstraintAtTimeStep(i) && b - h.getConstraintAtTimeStep(i) < 1e-12, "simplify(" + tol + ") is not tight: " + r);
+            }
+        }
+    }
+    
+    /* the simplified bound is finite and above the bound at the time steps and between them */
+    static void simplifyIsSound()
+    {
+        Random rnd = new Random(17);
+        for (int run = 0 ; run < 200 ; run++)
+        {
+            HyperplaneInTime h = new HyperplaneInTime(new double[] {1.0});
+            double t = 0;
+            int n = 2 + rnd.nextInt(200);
+            for (int i = 0 ; i < n ; i++)
+            {
+                h.addConstraintInTime(t, Math.sin(t) * (1 + rnd.nextDouble()));
+                t += rnd.nextInt(4) == 0 ? 0 : rnd.nextDouble();
+            }
+            double tol = run % 4 == 0 ? 0 : Math.pow(10, -rnd.nextInt(16));
+            HyperplaneInTime r = h.simplify(tol, 0);
+            for (int i = 0 ; i < r.getNumberOfTimeSteps() ; i++)
+                check(!Double.isNaN(r.getConstraintAtTimeStep(i)), "simplify(" + tol + ") gives a NaN bound");
+            for (int i = 0 ; i < h.getNumberOfTimeSteps() ; i++)
+            {
+                double ti = h.getTimeStep(i);
+                if (i > 0 && h.getTimeStep(i-1) == ti || i+1 < h.getNumberOfTimeSteps() && h.getTimeStep(i+1) == ti)
+                    continue;
+                check(r.getConstraint(ti) >= h.getConstraint(ti), "simplify(" + tol + ") is below the bound at " + ti);
+            }
+        }
+    }
+    
+    /* the bound of a direction in a polyhedron is the lowest of its lines, with a constraint at their crossing */
+    static void outerConstraintsWithCrossingLines()
+    {
+        Flowpipe fp = parseOuterConstraints("outer constraints: x + t <= 1 & x - t <= 0 & t >= 0 & t <= 1");
+        HyperplaneInTime h = fp.getHyperplanes().get(0);
+        check(h.getConstraint(0) == 0 && h.getConstraint(0.5) == 0.5 && h.getConstraint(1) == 0, "wrong bound of crossing lines: " + h);
+    }
+    
+    /* the bound over overlapping polyhedra is the highest one */
+    static void outerConstraintsWithOverlappingPolyhedra()
+    {
+        Flowpipe fp = parseOuterConstraints("outer constraints: x - 10*t <= 0 & t >= 0 & t <= 1\nouter constraints: x <= 1 & t >= 0.5 & t <= 2");
+        HyperplaneInTime h = fp.getHyperplanes().get(0);
+        for (double t = 0 ; t <= 2 ; t += 1.0/64)
+        {
+            double b = t <= 1 ? 10*t : 1;
+            if (t >= 0.5)
+                b = Math.max(b, 1);
+            check(h.getConstraint(t) >= b, "the bound of overlapping polyhedra is too low at " + t + ": " + h);
+        }
+    }
+    
+    /* the polyhedra must have a bounded time interval */
+    static void outerConstraintsWithoutTime()
+    {
+        try
+        {
+            parseOuterConstraints("outer constraints: x <= 1 & t >= 0");
+            check(false, "a polyhedron without bounded time interval has been accepted");
+        }
+        catch (SpaceExOutputParserException e)
+        {
+            check(e.getMessage().equals(SpaceExOutputParser.tmMessage), "wrong message: " + e.getMessage());
+        }
+    }
+    
+    /* a flowpipe is given as soon as its separator is written, and the whole output once the follower is stopped */
+    static void followerGivesTheFlowpipesWhileTheyAreWritten()
+    {
+        final BlockingQueue <Integer> parsed = new LinkedBlockingQueue <Integer>();
+        try
+        {
+            int separator = OUTPUT.indexOf('|') + 1;
+            String f = writeTemporaryFile(OUTPUT.substring(0, separator));
+            final SpaceExOutputFollower follower = new SpaceExOutputFollower(f, 0, new FlowpipeListener()
+                {
+                    public void flowpipeParsed(SpaceExOutputParser output, int index, Flowpipe fp)
+                    {
+                        parsed.add(index);
+                    }
+                });
+            final SpaceExOutputParser[] res = new SpaceExOutputParser[1];
+            Thread t = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        res[0] = follower.follow();
+                    }
+                });
+            t.start();
+            check(Integer.valueOf(0).equals(parsed.poll(10, TimeUnit.SECONDS)), "the first flowpipe has not been given while the output is written");
+            FileWriter w = new FileWriter(f, true);
+            w.write(OUTPUT.substring(separator));
+            w.close();
+            Thread.sleep(200);
+            follower.stop();
+            t.join(10000);
+            check(res[0] != null && sameFlowpipes(res[0].getFlowpipes(), new SpaceExOutputParser(new StringReader(OUTPUT)).getFlowpipes()),
+                  "wrong output of the follower");
+            check(Integer.valueOf(1).equals(parsed.poll()) && parsed.isEmpty(), "wrong flowpipes given to the listener");
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+        catch (InterruptedException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+    }
+    
+    /* the futures of a batch complete even if the listener throws */
+    static void batchFuturesCompleteWhenTheListenerThrows()
+    {
+        SpaceExBatchParser batch = new SpaceExBatchParser(2);
+        try
+        {
+            File f = File.createTempFile("check", ".txt");
+            f.deleteOnExit();
+            FileWriter w = new FileWriter(f);
+            w.write("Reachability result\nvariables domain: [x:real] locked\n");
+            w.close();
+            List <CompletableFuture <SpaceExOutputParser>> res = batch.parseAll(Arrays.asList(f.getPath(), f.getPath() + ".missing"), new SpaceExBatchListener()
+                {
+                    public void parsed(String fileName, SpaceExOutputParser parser)
+                    {
+                        throw new IllegalStateException("listener failure (expected)");
+                    }
+                    
+                    public void failed(String fileName, SpaceExOutputParserException e)
+                    {
+                        throw new IllegalStateException("listener failure (expected)");
+                    }
+                });
+            check(res.get(0).get(10, TimeUnit.SECONDS) != null, "the batch has not parsed the file");
+            try
+            {
+                res.get(1).get(10, TimeUnit.SECONDS);
+                check(false, "the batch has parsed a missing file");
+            }
+            catch (ExecutionException e)
+            {
+                check(e.getCause() instanceof SpaceExOutputParserException, "wrong failure: " + e.getCause());
+            }
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError("the futures of the batch are not complete: " + e);
+        }
+        finally
+        {
+            batch.shutdown();
+        }
+    }
+    
+    /* the off-heap and scratch file storages give the time steps and the bounds of the heap one */
+    static void storagesAsTheHeap()
+    {
+        ScratchFileStorageFactory scratch = new ScratchFileStorageFactory();
+        try
+        {
+            Random rnd = new Random(16);
+            for (int run = 0 ; run < 50 ; run++)
+            {
+                HyperplaneInTime heap = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, BreakpointStorageFactory.HEAP);
+                HyperplaneInTime off = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, BreakpointStorageFactory.OFF_HEAP);
+                HyperplaneInTime file = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, scratch);
+                int n = 1 + rnd.nextInt(300);
+                for (int i = 0 ; i < n ; i++)
+                {
+                    double t = rnd.nextInt(100)/8.0;
+                    double b = rnd.nextDouble();
+                    heap.addConstraintInTime(t, b);
+                    off.addConstraintInTime(t, b);
+                    file.addConstraintInTime(t, b);
+                }
+                check(sameHyperplanes(heap, off) && sameHyperplanes(heap, file) && heap.getTimeSteps().equals(file.getTimeSteps()), "wrong breakpoints of a storage");
+                /* the storages also agree on the undefined bounds (a jump at the first time step) */
+                for (double t = 0 ; t <= 13 ; t += 1.0/32)
+                    check(Double.compare(heap.getConstraint(t), off.getConstraint(t)) == 0 && Double.compare(heap.getConstraint(t), file.getConstraint(t)) == 0, "wrong bound of a storage at " + t);
+            }
+        }
+        finally
+        {
+            scratch.close();
+        }
+    }
+    
+    /* a frozen flowpipe refuses the modifications, and keeps its bounds when its original hyperplanes are modified */
+    static void heapFreezeIsASnapshot()
+    {
+        Random rnd = new Random(19);
+        Flowpipe fp = new Flowpipe();
+        HyperplaneInTime h = randomHyperplane(rnd, 1.0);
+        fp.addHyperplane(h);
+        fp.addHyperplane(randomHyperplane(rnd, 2.0));
+        int n = fp.polyhedralRepresentation().size();
+        Flowpipe f = fp.freeze();
+        check(f.isFrozen() && !fp.isFrozen() && f.freeze() == f, "wrong snapshot of the flowpipe");
+        HyperplaneInTime fh = f.getHyperplanes().get(0);
+        check(fh.isFrozen() && fh.freeze() == fh && sameHyperplanes(h, fh), "wrong snapshot of the hyperplane");
+        List <Double> bounds = new ArrayList <Double>();
+        for (double t = 0.125 ; t <= 10 ; t += 0.125) bounds.add(fh.getConstraint(t));
+        /* the modifications of the original do not reach the snapshot */
+        for (int i = 0 ; i < 20 ; i++) h.addConstraintInTime(10.0*rnd.nextDouble(), -1.0 - i);
+        fp.addHyperplane(randomHyperplane(rnd, 3.0));
+        int k = 0;
+        for (double t = 0.125 ; t <= 10 ; t += 0.125)
+            check(Double.compare(fh.getConstraint(t), bounds.get(k++)) == 0, "the snapshot has been modified at " + t);
+        check(f.getHyperplanes().size() == 2 && f.polyhedralStream().parallel().count() == n, "wrong polyhedra of the snapshot");
+        try
+        {
+            fh.addConstraintInTime(11.0, 1.0);
+            check(false, "a constraint has been added to a frozen hyperplane");
+        }
+        catch (FlowpipeException e)
+        {
+        }
+        try
+        {
+            f.addHyperplane(randomHyperplane(rnd, 4.0));
+            check(false, "a hyperplane has been added to a frozen flowpipe");
+        }
+        catch (FlowpipeException e)
+        {
+        }
+    }
+    
+    /* an off-heap hyperplane is frozen in place, and its snapshot is kept intact by the later modifications */
+    static void offHeapFreezeStaysInPlace()
+    {
+        HyperplaneInTime h = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, BreakpointStorageFactory.OFF_HEAP);
+        for (int i = 10 ; i > 0 ; i--) h.addConstraintInTime(i, i);
+        HyperplaneInTime f = h.freeze();
+        check(f.isFrozen() && f.getNumberOfTimeSteps() == 10, "wrong snapshot: " + f);
+        h.addConstraintInTime(0, 100);
+        h.addConstraintInTime(0.5, 100);
+        check(h.getTimeStep(0) == 0 && h.getNumberOfTimeSteps() == 12, "wrong hyperplane after the snapshot: " + h);
+        for (int i = 0 ; i < 10 ; i++)
+            check(f.getTimeStep(i) == i+1 && f.getConstraintAtTimeStep(i) == i+1, "the snapshot has been modified: " + f);
+    }
+    
+    /* the buffers which a storage gives back when it sorts or grows are reused, so that the scratch file does not grow with the sorts */
+    static void scratchFileReusesItsBuffers()
+    {
+        ScratchFileStorageFactory factory = new ScratchFileStorageFactory();
+        try
+        {
+            HyperplaneInTime h = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, factory);
+            for (int i = 1000 ; i > 0 ; i--) h.addConstraintInTime(i, i);
+            h.seal();
+            long size = factory.usedSize();
+            for (int k = 0 ; k < 20 ; k++)
+            {
+                h.addConstraintInTime(-k, k);
+                h.seal();
+            }
+            check(factory.usedSize() == size, "the scratch file grows with the sorts: " + size + " -> " + factory.usedSize());
+            check(h.getNumberOfTimeSteps() == 1020 && h.getTimeStep(0) == -19 && h.getTimeStep(1019) == 1000, "wrong sorted breakpoints: " + h.getNumberOfTimeSteps());
+            for (int k = 0 ; k < 1020 ; k++)
+                check(k == 0 || h.getTimeStep(k-1) < h.getTimeStep(k), "the breakpoints are not sorted at " + k);
+            /* the buffers of the growth are reused by the next storages */
+            HyperplaneInTime g = new HyperplaneInTime(1, new int[] {0}, new double[] {1.0}, factory);
+            for (int i = 0 ; i < 500 ; i++) g.addConstraintInTime(i, i);
+            check(factory.usedSize() == size, "the scratch file grows with a new storage: " + size + " -> " + factory.usedSize());
+            check(g.getConstraint(250) == 250 && h.getConstraint(500) == 500, "the buffers of a storage are shared with another one");
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+    
+    /* the exceptions of the parser keep their message in a parallel parsing, in the first flowpipe as in the other ones */
+    static void parallelParsingKeepsTheMessages()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            String domain = "Reachability result\nvariables domain: [x:real] locked\n";
+            String untimed = "outer constraints: x <= 1\n";
+            for (String output : new String[] {domain + untimed, domain + "outer constraints: x <= 1 & t >= 0 & t <= 1\n|\n" + untimed})
+            {
+                File f = File.createTempFile("check", ".txt");
+                f.deleteOnExit();
+                FileWriter w = new FileWriter(f);
+                w.write(output);
+                w.close();
+                try
+                {
+                    new SpaceExOutputParser(f.getPath(), executor);
+                    check(false, "a polyhedron without bounded time interval has been accepted");
+                }
+                catch (SpaceExOutputParserException e)
+                {
+                    check(SpaceExOutputParser.tmMessage.equals(e.getMessage()), "wrong message: " + e.getMessage());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    /* the selected variables keep the order of the domain, the other directions are dropped, and the mixed ones follow the policy */
+    static void projectionPolicies()
+    {
+        String output = "Reachability result\nvariables domain: [x:real, y:real, z:real] locked\n"
+            + "direction: [x=0,y=0,z=2] plif: Upper Function: points: [[0, 1, 0, 0]] error: 0\n"
+            + "direction: [x=-1,y=0,z=0] plif: Upper Function: points: [[0, 2, 0, 0]] error: 0\n"
+            + "direction: [x=0,y=1,z=0] plif: Upper Function: points: [[0, 3, 0, 0]] error: 0\n"
+            + "direction: [x=1,y=1,z=1] plif: Upper Function: points: [[0, 4, 0, 0]] error: 0\n";
+        SpaceExOutputParser p = new SpaceExOutputParser(new StringReader(output), Arrays.asList("z", "x"), ProjectionPolicy.DROP);
+        List <HyperplaneInTime> hs = p.getFlowpipes().get(0).getHyperplanes();
+        check(p.getDimension() == 2 && Arrays.equals(p.getVectorFromVariable("z"), new double[] {0, 1, 0}), "wrong projected variables");
+        check(hs.size() == 2 && Arrays.equals(hs.get(0).getNormalDirection(), new double[] {0, 2}) && Arrays.equals(hs.get(1).getNormalDirection(), new double[] {-1, 0})
+              && hs.get(1).getConstraint(0) == 2, "wrong projected directions: " + p.getFlowpipes().get(0));
+        for (ProjectionPolicy policy : new ProjectionPolicy[] {ProjectionPolicy.FAIL, ProjectionPolicy.DROP})
+        {
+            try
+            {
+                new SpaceExOutputParser(new StringReader(output), Arrays.asList(policy == ProjectionPolicy.FAIL ? "x" : "w"), policy);
+                check(false, "the projection has not failed with " + policy);
+            }
+            catch (SpaceExOutputParserException e)
+            {
+            }
+        }
+        check(new SpaceExOutputParser(new StringReader(output.substring(0, output.lastIndexOf("direction"))), Arrays.asList("x"), ProjectionPolicy.FAIL)
+              .getFlowpipes().get(0).getHyperplanes().size() == 1, "wrong projection with the FAIL policy");
+    }
+    
+    /* the parallel parsing projects the flowpipes as the sequential one, and fails with the same message with the FAIL policy */
+    static void parallelProjections()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            String output = "Reachability result\nvariables domain: [x:real, y:real, z:real] locked\n"
+                + "direction: [x=1, y=0, z=0] plif: Upper Function: points: [[0, 1, 0, 0],[1, 2, 0, 0]] error: 0\n|\n"
+                + "direction: [x=0, y=0, z=1] plif: Upper Function: points: [[1, 3, 0, 0],[2, 4, 0, 0]] error: 0\n"
+                + "direction: [x=1, y=0, z=1] plif: Upper Function: points: [[1, 3, 0, 0],[2, 4, 0, 0]] error: 0\n"
+                + "direction: [x=-1, y=0, z=0] plif: Upper Function: points: [[1, 5, 0, 0],[2, 6, 0, 0]] error: 0\n";
+            String f = writeTemporaryFile(output);
+            List <String> xy = Arrays.asList("x", "y");
+            SpaceExOutputParser seq = new SpaceExOutputParser(f, xy, ProjectionPolicy.DROP);
+            SpaceExOutputParser par = new SpaceExOutputParser(f, xy, ProjectionPolicy.DROP, executor);
+            check(par.getDimension() == 2 && sameFlowpipes(seq.getFlowpipes(), par.getFlowpipes()), "the parallel projection differs from the sequential one");
+            check(par.getFlowpipes().get(1).getHyperplanes().size() == 1, "wrong parallel projection: " + par.getFlowpipes().get(1));
+            String message = null;
+            try
+            {
+                new SpaceExOutputParser(f, xy, ProjectionPolicy.FAIL);
+            }
+            catch (SpaceExOutputParserException e)
+            {
+                message = e.getMessage();
+            }
+            check(message != null, "a mixed direction has been projected with the FAIL policy");
+            try
+            {
+                new SpaceExOutputParser(f, xy, ProjectionPolicy.FAIL, executor);
+                check(false, "a mixed direction has been projected in parallel with the FAIL policy");
+            }
+            catch (SpaceExOutputParserException e)
+            {
+                check(message.equals(e.getMessage()), "wrong message: " + e.getMessage());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    /* the constraints in time are stored by the given factory, whatever the input */
+    static void storageFactoriesOfAllTheInputs()
+    {
+        final int[] storages = {0};
+        BreakpointStorageFactory counting = new BreakpointStorageFactory()
+            {
+                public BreakpointStorage newStorage()
+                {
+                    synchronized (storages)
+                    {
+                        storages[0]++;
+                    }
+                    return BreakpointStorageFactory.OFF_HEAP.newStorage();
+                }
+            };
+        String output = "Reachability result\nvariables domain: [x:real] locked\ndirection: [x=1] plif: Upper Function: points: [[0, 1, 2, 3]] error: 0\n|\n"
+            + "direction: [x=1] plif: Upper Function: points: [[0, 1, 2, 3]] error: 0\n";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            File f = File.createTempFile("check", ".txt");
+            f.deleteOnExit();
+            FileWriter w = new FileWriter(f);
+            w.write(output);
+            w.close();
+            new SpaceExOutputParser(new StringReader(output), counting);
+            new SpaceExOutputParser(new ByteArrayInputStream(output.getBytes()), counting);
+            new SpaceExOutputParser(Channels.newChannel(new ByteArrayInputStream(output.getBytes())), counting);
+            new SpaceExOutputParser(f.getPath(), executor, counting);
+            check(storages[0] == 8, "the factory has not been used for all the inputs: " + storages[0]);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    /* the matrix of the bounds on a grid is b(t) of each hyperplane, for increasing times or not, and it must fit in the array */
+    static void boundsOnATimeGrid()
+    {
+        Random rnd = new Random(15);
+        Flowpipe fp = new Flowpipe();
+        for (int j = 0 ; j < 3 ; j++) fp.addHyperplane(randomHyperplane(rnd, 1.0 + j));
+        List <HyperplaneInTime> hitl = fp.getHyperplanes();
+        for (boolean increasing : new boolean[] {true, false})
+        {
+            double[] times = new double[200];
+            for (int i = 0 ; i < times.length ; i++) times[i] = increasing ? i/16.0 - 1 : rnd.nextInt(200)/16.0 - 1;
+            double[] res = new double[3 + 3*times.length];
+            fp.evaluateBounds(times, res, 3);
+            for (int j = 0 ; j < 3 ; j++)
+                for (int i = 0 ; i < times.length ; i++)
+                    check(res[3 + j*times.length + i] == hitl.get(j).getConstraint(times[i]), "wrong bound of " + j + " at " + times[i]);
+            try
+            {
+                fp.evaluateBounds(times, res, 4);
+                check(false, "a matrix which does not fit has been written");
+            }
+            catch (FlowpipeException e)
+            {
+            }
+        }
+    }
+    
+    /* the bounds written in a direct buffer, from its position, are the ones written in an array */
+    static void boundsInDirectBuffers()
+    {
+        Flowpipe fp = parseOuterConstraints("outer constraints: x + t <= 1 & -x <= 2 & t >= 0 & t <= 1");
+        double[] times = {1, 0, 0.25, 0.5};
+        double[] expected = new double[8];
+        fp.evaluateBounds(times, expected, 0);
+        DoubleBuffer res = ByteBuffer.allocateDirect(8*10).asDoubleBuffer();
+        res.position(2);
+        fp.evaluateBounds(times, res);
+        check(res.position() == 2, "the position of the buffer has been moved");
+        for (int i = 0 ; i < 8 ; i++)
+            check(res.get(2+i) == expected[i], "wrong bound in the buffer at " + i);
+    }
+    
+    /* a reader, a stream and a channel give the flowpipes of the file, and they are not closed */
+    static void streamInputs()
+    {
+        try
+        {
+            List <Flowpipe> expected = new SpaceExOutputParser(writeTemporaryFile(OUTPUT)).getFlowpipes();
+            final boolean[] closed = {false};
+            ByteArrayInputStream bytes = new ByteArrayInputStream(OUTPUT.getBytes())
+                {
+                    @Override
+                    public void close()
+                    {
+                        closed[0] = true;
+                    }
+                };
+            check(sameFlowpipes(expected, new SpaceExOutputParser(new StringReader(OUTPUT)).getFlowpipes()), "wrong output of a reader");
+            check(sameFlowpipes(expected, new SpaceExOutputParser(bytes).getFlowpipes()), "wrong output of a stream");
+            check(sameFlowpipes(expected, new SpaceExOutputParser(Channels.newChannel(new ByteArrayInputStream(OUTPUT.getBytes()))).getFlowpipes()),
+                  "wrong output of a channel");
+            check(!closed[0], "the stream has been closed");
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e.toString());
+        }
+    }
+    
+    /* the output of a process is parsed while it is written */
+    static void processOutputs()
+    {
+        SpaceExOutputParser p = SpaceExOutputParser.parseProcessOutput("printf", "%s\\n", "Reachability result", "variables domain: [x:real] locked",
+                                                                       "direction: [x=1] plif: Upper Function: points: [[0, 1, 0, 0],[1, 2, 0, 0]] error: 0");
+        check(p.getFlowpipes().size() == 1 && p.getFlowpipes().get(0).getHyperplanes().get(0).getConstraint(0.5) == 1.5, "wrong output of the process");
+    }
+    
+    /* a failed process is reported by its exit code, even if its output is missing or partial */
+    static void failedProcesses()
+    {
+        for (String[] command : new String[][] {{"false"}, {"sh", "-c", "echo Reachability result; exit 3"}})
+        {
+            try
+            {
+                SpaceExOutputParser.parseProcessOutput(command);
+                check(false, "the failure of the process has not been reported");
+            }
+            catch (SpaceExOutputParserException e)
+            {
+                String code = command.length == 1 ? "1" : "3";
+                check(e.getMessage().equals(SpaceExOutputParser.exMessage + code), "wrong message: " + e.getMessage());
+                check(e.getCause() instanceof SpaceExOutputParserException, "the parsing error is not the cause: " + e.getCause());
+            }
+        }
+    }
+    
+    /* the line of a segment between two time steps is above the bound after a jump at its ends, and at the time steps */
+    static void segmentsAboveTheJumps()
+    {
+        HyperplaneInTime h = new HyperplaneInTime(new double[] {1.0});
+        h.addConstraintInTime(0, 1);
+        h.addConstraintInTime(1, 1);
+        h.addConstraintInTime(1, 5);
+        h.addConstraintInTime(2, 3);
+        h.addConstraintInTime(2, 0);
+        h.addConstraintInTime(3, 0);
+        check(h.getLargestConstraint(1) == 5 && h.getLargestConstraint(2) == 3 && h.getLargestConstraint(1.5) == 4, "wrong largest bound: " + h);
+        double[] line = new double[2];
+        double[] steps = {-1, 0, 1, 2, 3, 4};
+        for (int k = 1 ; k < steps.length ; k++)
+        {
+            double ta = steps[k-1];
+            double tb = steps[k];
+            Flowpipe.segmentLine(h, ta, tb, line);
+            for (double t = ta ; t <= tb ; t += 1.0/64)
+            {
+                double b = t == ta ? h.getLargestConstraint(t) : h.getConstraint(t);
+                check(line[0]*t + line[1] >= b - 1e-12, "the segment [" + ta + ", " + tb + "] is below the bound at " + t);
+            }
+        }
+    }
+    
+    /* the boxes are read from the axis directions only: b(t)/c at a time, and the maximum of b over a window, including its jumps */
+    static void boundingBoxes()
+    {
+        Random rnd = new Random(20);
+        HyperplaneInTime hx = new HyperplaneInTime(randomHyperplane(rnd, 1.0), new double[] {2.0, 0.0});
+        HyperplaneInTime hnx = new HyperplaneInTime(randomHyperplane(rnd, 1.0), new double[] {-1.0, 0.0});
+        HyperplaneInTime hy = new HyperplaneInTime(randomHyperplane(rnd, 1.0), new double[] {0.0, 1.0});
+        Flowpipe fp = new Flowpipe();
+        fp.addHyperplane(hx);
+        fp.addHyperplane(hnx);
+        fp.addHyperplane(hy);
+        fp.addHyperplane(new HyperplaneInTime(randomHyperplane(rnd, 1.0), new double[] {1.0, 1.0}));
+        check(fp.boundingBoxes().size() == fp.polyhedralRepresentation().size(), "wrong number of boxes");
+        /* at the times between the time steps */
+        for (double t = 0.1 ; t < 9.5 ; t += 0.25)
+        {
+            IntervalBox b = fp.boundingBoxAt(t);
+            check(b.getDimension() == 2 && b.getUpper(0) >= hx.getConstraint(t)/2 && b.getUpper(0) <= Math.nextUp(Math.nextUp(hx.getConstraint(t)/2)), "wrong upper bound of x at " + t + ": " + b);
+            check(b.getLower(0) == -hnx.getConstraint(t) && b.getUpper(1) == hy.getConstraint(t), "wrong bounds at " + t + ": " + b);
+            check(b.getLower(1) == Double.NEGATIVE_INFINITY, "a bound has been read from a direction which is not an axis: " + b);
+        }
+        for (int run = 0 ; run < 200 ; run++)
+        {
+            /* half of the windows begin at a time step of the grid, so that they can begin or end at a jump */
+            double t1 = rnd.nextBoolean() ? 10*rnd.nextDouble() : rnd.nextInt(40)*0.25;
+            double t2 = t1 + (rnd.nextBoolean() ? rnd.nextInt(8)*0.25 : 3*rnd.nextDouble());
+            IntervalBox b = fp.boundingBoxBetween(t1, t2);
+            check(b.getUpper(1) == windowMaximum(hy, t1, t2) && b.getLower(0) == -windowMaximum(hnx, t1, t2), "wrong box over [" + t1 + ", " + t2 + "]: " + b);
+            check(b.getUpper(0) >= windowMaximum(hx, t1, t2)/2, "the box over [" + t1 + ", " + t2 + "] misses x: " + b);
+            check(t1 == t2 || fp.boundingBoxBetween(t2, t1).isEmpty(), "the box of an inverted window is not empty");
+        }
+    }
+    
+    /* the maximum of b over [t1, t2] on a grid, with the two bounds of the jumps inside */
+    static double windowMaximum(HyperplaneInTime h, double t1, double t2)
+    {
+        double m = Math.max(h.getConstraint(t1), h.getConstraint(t2));
+        for (double t = t1 ; t < t2 ; t += 1.0/64) m = Math.max(m, h.getConstraint(t));
+        for (int k = 0 ; k < h.getNumberOfTimeSteps() ; k++)
+            if (t1 <= h.getTimeStep(k) && h.getTimeStep(k) <= t2)
+                m = Math.max(m, h.getConstraintAtTimeStep(k));
+        return m;
+    }
+    
+    /* the listener is told the figures of each parsing and the number of polyhedra which are really built */
+    static void metricsOfTheParsingAndThePolyhedra()
+    {
+        final List <ParsingMetrics> parsings = Collections.synchronizedList(new ArrayList <ParsingMetrics>());
+        final List <Integer> built = Collections.synchronizedList(new ArrayList <Integer>());
+        Metrics.setListener(new MetricsListener()
+            {
+                public void outputParsed(ParsingMetrics metrics)
+                {
+                    parsings.add(metrics);
+                }
+                
+                public void polyhedraBuilt(int polyhedra, int hyperplanes, long time)
+                {
+                    check(hyperplanes == 2 && time >= 0, "wrong figures of a conversion: " + hyperplanes + " hyperplanes in " + time + " ns");
+                    built.add(polyhedra);
+                }
+            });
+        try
+        {
+            String file = writeTemporaryFile(OUTPUT);
+            SpaceExOutputParser p = new SpaceExOutputParser(file);
+            new SpaceExOutputParser(new StringReader(OUTPUT));
+            check(parsings.size() == 2, "wrong number of reported parsings: " + parsings.size());
+            for (ParsingMetrics m : parsings)
+            {
+                check(m.getFlowpipes() == 2 && m.getHyperplanes() == 3 && m.getBreakpoints() == 8, "wrong figures of the parsing: " + m);
+                check(m.getBytesRead() == OUTPUT.length() && m.getParseTime() >= m.getReadTime() && m.getReadTime() >= 0, "wrong sizes or times of the parsing: " + m);
+            }
+            check(file.equals(parsings.get(0).getSource()), "wrong source of the parsing: " + parsings.get(0));
+            Flowpipe fp = p.getFlowpipes().get(0);
+            int n = fp.polyhedralRepresentation().size();
+            PolyhedronCache cache = new PolyhedronCache(100);
+            fp.polyhedralRepresentation(cache);
+            fp.polyhedralRepresentation(cache);
+            check(built.equals(Arrays.asList(n, n, 0)), "wrong numbers of built polyhedra: " + built);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e);
+        }
+        finally
+        {
+            Metrics.setListener(null);
+        }
+        /* once disabled, the listener is not told anything */
+        new SpaceExOutputParser(new StringReader(OUTPUT));
+        check(parsings.size() == 2 && Metrics.getListener() == null, "the listener has not been disabled");
+    }
+    
+    /* the generator of the benchmarks is deterministic, and its outputs are parsed as by the regular expressions of the first release */
+    static void generatedOutputs()
+    {
+        try
+        {
+            StringWriter w1 = new StringWriter();
+            StringWriter w2 = new StringWriter();
+            new SpaceExOutputGenerator(21, 3, 6, 40, 4).write(w1);
+            new SpaceExOutputGenerator(21, 3, 6, 40, 4).write(w2);
+            check(w1.toString().equals(w2.toString()), "the generator is not deterministic");
+            StringWriter w3 = new StringWriter();
+            new SpaceExOutputGenerator(22, 3, 6, 40, 4).write(w3);
+            check(!w1.toString().equals(w3.toString()), "the seed is not used by the generator");
+            List <Flowpipe> l = new SpaceExOutputParser(new StringReader(w1.toString())).getFlowpipes();
+            check(sameFlowpipes(regexFlowpipes(w1.toString()), l), "the lexer differs on a generated output");
+            check(l.size() == 4, "wrong number of generated flowpipes: " + l.size());
+            for (Flowpipe fp : l)
+            {
+                check(fp.getHyperplanes().size() == 6, "wrong number of generated directions: " + fp.getHyperplanes().size());
+                for (HyperplaneInTime h : fp.getHyperplanes())
+                    check(h.getDimension() == 3 && h.getNumberOfTimeSteps() == 40, "wrong generated hyperplane: " + h);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e);
+        }
+    }
+    
+    static final String OUTPUT = "Reachability result\nvariables domain: [x:real, y:real] locked\n"
+        + "direction: [x=1,y=0] plif: Upper Function: points: [[0, 1, 0, 0],[1, 2, 0, 0],[1, 4, 0, 0],[2, 3, 0, 0]] error: 0\n"
+        + "direction: [x=0,y=-1] plif: Upper Function: points: [[0, 5, 0, 0],[2, 6, 0, 0]] error: 0\n|\n"
+        + "direction: [x=1,y=0] plif: Upper Function: points: [[2, 3, 0, 0],[3, 1, 0, 0]] error: 0\n";
+    
+    /* a random output in the format of SpaceEx: numbers in several notations, spaces, unsorted and repeated times, empty flowpipes */
+    static String randomOutput(Random rnd)
+    {
+        int nv = 1 + rnd.nextInt(4);
+        StringBuilder sb = new StringBuilder("Reachability result\nvariables domain: [");
+        for (int i = 0 ; i < nv ; i++) sb.append(i > 0 ? ", " : "").append("v_").append(i).append(":real");
+        sb.append("] locked\n");
+        int nf = 1 + rnd.nextInt(4);
+        for (int f = 0 ; f < nf ; f++)
+        {
+            if (f > 0)
+                sb.append("|\nReachability result\n");
+            int nd = rnd.nextInt(5);
+            for (int k = 0 ; k < nd ; k++)
+            {
+                sb.append("direction: [");
+                for (int i = 0 ; i < nv ; i++) sb.append(i > 0 ? "," : "").append("v_").append(i).append('=').append(randomNumber(rnd));
+                sb.append("] plif:\n Upper Function: points: [");
+                int np = 1 + rnd.nextInt(6);
+                for (int j = 0 ; j < np ; j++)
+                {
+                    sb.append(j > 0 ? ",\n[" : "[").append(rnd.nextInt(4) == 0 ? Math.abs(randomNumber(rnd)) : j);
+                    for (int m = 0 ; m < 3 ; m++) sb.append(", ").append(randomNumber(rnd));
+                    sb.append(']');
+                }
+                sb.append("] error: 0\n");
+            }
+        }
+        if (rnd.nextBoolean())
+            sb.append("|\n");
+        return sb.toString().replace("E", "e");
+    }
+    
+    static double randomNumber(Random rnd)
+    {
+        switch (rnd.nextInt(4))
+        {
+            case 0 : return rnd.nextInt(10) - 5;
+            case 1 : return (rnd.nextInt(2000) - 1000)/8.0;
+            case 2 : return (rnd.nextDouble() - 0.5)*1e-5;
+            default : return (rnd.nextDouble() - 0.5)*100;
+        }
+    }
+    
+    /* the flowpipes of an output as the first release parses them, with its regular expressions */
+    static List <Flowpipe> regexFlowpipes(String output)
+    {
+        Pattern pNumber = Pattern.compile("-?(\\d+(\\.\\d+)?(e-?(\\d+))?)");
+        String[] fps = output.replace("\n", "").split("\\|");
+        Matcher m = Pattern.compile("\\[.*\\]").matcher(find("domain.*locked", fps[0]));
+        m.find();
+        String[] vars = m.group().substring(1, m.group().length()-1).split(",");
+        Map <String, Integer> varMap = new HashMap <String, Integer>();
+        for (int i = 0 ; i < vars.length ; i++) varMap.put(find("((\\d)|(\\w)|(\\.))*", vars[i].trim()), i);
+        List <Flowpipe> res = new ArrayList <Flowpipe>();
+        for (String fp : fps)
+        {
+            Flowpipe f = new Flowpipe();
+            String[] dirs = fp.split("direction");
+            for (int j = 1 ; j < dirs.length ; j++)
+            {
+                double[] dir = new double[vars.length];
+                String coords = find("\\[.*\\]", find(".*plif", dirs[j]));
+                for (String c : coords.substring(1, coords.length()-1).split(","))
+                    dir[varMap.get(c.split("=")[0])] = Double.parseDouble(c.split("=")[1]);
+                HyperplaneInTime h = new HyperplaneInTime(dir);
+                Matcher mn = pNumber.matcher(find("points.*error", find("Upper\\sFunction.*error", dirs[j])));
+                while (mn.find())
+                {
+                    double t = Double.parseDouble(mn.group());
+                    double b = Double.NEGATIVE_INFINITY;
+                    for (int k = 0 ; k < 3 && mn.find() ; k++) b = Math.max(b, Double.parseDouble(mn.group()));
+                    h.addConstraintInTime(t, b);
+                }
+                f.addHyperplane(h);
+            }
+            res.add(f);
+        }
+        return res;
+    }
+    
+    static String find(String regex, String s)
+    {
+        Matcher m = Pattern.compile(regex).matcher(s);
+        m.find();
+        return m.group();
+    }
+    
+    static String writeTemporaryFile(String content) throws IOException
+    {
+        File f = File.createTempFile("check", ".txt");
+        f.deleteOnExit();
+        FileWriter w = new FileWriter(f);
+        w.write(content);
+        w.close();
+        return f.getPath();
+    }
+    
+    /* true if the flowpipes have the same hyperplanes, with the same directions and breakpoints */
+    static boolean sameFlowpipes(List <Flowpipe> l1, List <Flowpipe> l2)
+    {
+        if (l1.size() != l2.size())
+            return false;
+        for (int i = 0 ; i < l1.size() ; i++)
+        {
+            List <HyperplaneInTime> h1 = l1.get(i).getHyperplanes();
+            List <HyperplaneInTime> h2 = l2.get(i).getHyperplanes();
+            if (h1.size() != h2.size())
+                return false;
+            for (int j = 0 ; j < h1.size() ; j++)
+                if (!sameHyperplanes(h1.get(j), h2.get(j)))
+                    return false;
+        }
+        return true;
+    }
+    
+    static boolean sameHyperplanes(HyperplaneInTime h1, HyperplaneInTime h2)
+    {
+        if (!Arrays.equals(h1.getNormalDirection(), h2.getNormalDirection()) || h1.getNumberOfTimeSteps() != h2.getNumberOfTimeSteps())
+            return false;
+        for (int k = 0 ; k < h1.getNumberOfTimeSteps() ; k++)
+            if (h1.getTimeStep(k) != h2.getTimeStep(k) || h1.getConstraintAtTimeStep(k) != h2.getConstraintAtTimeStep(k))
+                return false;
+        return true;
+    }
+    
+    static Flowpipe parseOuterConstraints(String polyhedra)
+    {
+        String output = "Reachability result\nvariables domain: [x:real] locked\n" + polyhedra + "\n";
+        return new SpaceExOutputParser(new StringReader(output)).getFlowpipes().get(0);
+    }
+    
+    static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}